@@ -13,6 +13,7 @@ import structures.Connection;
 import structures.Graph;
 import structures.QuadTree;
 import structures.Stop;
+import structures.TripIndex;
 
 public class TripPlanner extends GUI {
 
@@ -145,26 +146,21 @@ public class TripPlanner extends GUI {
 	 * @param stop the stop that we want to print its information
 	 */
 	private void printStopInfo(Stop stop) {
-		String stopName = stop.getName();
-		HashMap<String, Connection> connections = stop.getAllConnections();
-		HashMap<String, Integer> tripIds = new HashMap<>();
+		TripIndex tripIndex = graph.getTripIndex();
+		int tripCount = tripIndex.getTripCount(stop);
 
 		// get the name of the stop
-		String stopInfo = "Stop Name: " + "\n" + stopName + "\n\n";
-
-		// get the IDs of all the trips that go through the stop
-		stopInfo += "Trip IDs:\n";
-		for (String key : connections.keySet()) {
-			Connection connection = connections.get(key);
-			String currentTripId = connection.getTrip().getId();
-			// check if the trip's id was already added to the set
-			if (tripIds.get(currentTripId) == null) {
-				stopInfo += currentTripId + "\n";
-				tripIds.put(currentTripId, 1);
-			}
+		StringBuilder stopInfo = new StringBuilder();
+		stopInfo.append("Stop Name: \n").append(stop.getName()).append("\n\n");
+
+		// get the IDs of all the trips that go through the stop, which the trip index
+		// already stores without duplicates
+		stopInfo.append("Trip IDs:\n");
+		for (int i = 0; i < tripCount; i++) {
+			stopInfo.append(tripIndex.getTrip(stop, i).getId()).append('\n');
 		}
 
-		getTextOutputArea().setText(stopInfo);
+		getTextOutputArea().setText(stopInfo.toString());
 	}
 
 	@Override
@@ -14,6 +14,8 @@ public class Graph {
 	private HashMap<String, Stop> stops = new HashMap<>();
 	ArrayList<Connection> connections = new ArrayList<>();
 	private Trie trie = new Trie();
+	// the distinct trips of each stop, built once the trips file has been read
+	private TripIndex tripIndex;
 
 	/**
 	 * reads a stops file, parses its data, and returns them as a list.
@@ -49,6 +51,10 @@ public class Graph {
 				// get the stop's location
 				Location location = Location.newFromLatLon(lat, lon);
 				Stop stop = new Stop(id, name, location);
+				// a stop that's read again, from a reload or a repeated id, keeps its
+				// index, so the indices stay below the number of stops
+				Stop previous = stops.get(id);
+				stop.setIndex(previous != null ? previous.getIndex() : stops.size());
 				// add the stop to the hashmap by its id
 				stops.put(stop.getId(), stop);
 				// add the stop by name to the trie
@@ -77,6 +83,9 @@ public class Graph {
 		BufferedReader reader = new BufferedReader(fr);
 
 		String line;
+		// the trips, and the indices of their stops, used to build the trip index
+		ArrayList<Trip> trips = new ArrayList<>();
+		ArrayList<int[]> tripStops = new ArrayList<>();
 
 		try {
 			// ignore the first line
@@ -88,12 +97,14 @@ public class Graph {
 				// get the trip id
 				String tripId = stopIds[0];
 				Trip trip = new Trip(tripId);
+				int[] stopIndices = new int[stopIds.length - 1];
 
 				// add connections to all the stops
 				for (int i = 1; i < stopIds.length; i++) {
 					// get the stop by its id
 					String id = stopIds[i];
 					Stop stop = stops.get(id);
+					stopIndices[i - 1] = stop.getIndex();
 
 					// add next connection
 					if (i < stopIds.length - 1) {
@@ -122,11 +133,21 @@ public class Graph {
 				// connections
 				trip.setConnections(stopConnections);
 				connections.addAll(stopConnections);
+
+				trips.add(trip);
+				tripStops.add(stopIndices);
 			}
 
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+
+		// size the index to hold the largest index any stop has been given
+		int stopCount = 0;
+		for (Stop stop : stops.values()) {
+			stopCount = Math.max(stopCount, stop.getIndex() + 1);
+		}
+		tripIndex = new TripIndex(stopCount, trips, tripStops);
 	}
 
 	/**
@@ -154,4 +175,8 @@ public class Graph {
 	public Trie getTrie() {
 		return trie;
 	}
+
+	public TripIndex getTripIndex() {
+		return tripIndex;
+	}
 }
@@ -16,6 +16,8 @@ public class Stop {
 	private String id;
 	private String name;
 	private Location location;
+	// the stop's position in the graph's list of stops, used by the trip index
+	private int index;
 	private HashMap<String, Connection> nextConnections;
 	private HashMap<String, Connection> previousConnections;
 	// checks whether to highlight this stop on the canvas or not
@@ -70,6 +72,14 @@ public class Stop {
 		return name;
 	}
 
+	public int getIndex() {
+		return index;
+	}
+
+	public void setIndex(int index) {
+		this.index = index;
+	}
+
 	public Location getLocation() {
 		return location;
 	}
@@ -0,0 +1,123 @@
+package structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * maps every stop to the distinct trips that go through it. The index is built
+ * once after the trips file has been read, and stores the trip indices of each
+ * stop as a sorted slice of one shared int array.
+ */
+public class TripIndex {
+	// all the trips, where a trip's index is its position in this array
+	private final Trip[] trips;
+	// the slice of tripIds that belongs to stop i is [offsets[i], offsets[i + 1])
+	private final int[] offsets;
+	private final int[] tripIds;
+
+	/**
+	 * builds the index from the stops of each trip.
+	 *
+	 * @param stopCount the number of stops in the graph
+	 * @param trips     the list of trips, in the order they were read
+	 * @param tripStops the indices of the stops of each trip, in the same order as
+	 *                  the list of trips
+	 */
+	public TripIndex(int stopCount, ArrayList<Trip> trips, ArrayList<int[]> tripStops) {
+		this.trips = trips.toArray(new Trip[0]);
+		offsets = new int[stopCount + 1];
+
+		// the last trip that was counted for each stop, used to skip trips that
+		// visit the same stop more than once
+		int[] lastTrip = new int[stopCount];
+		Arrays.fill(lastTrip, -1);
+
+		// count the distinct trips of each stop
+		for (int t = 0; t < tripStops.size(); t++) {
+			for (int stop : tripStops.get(t)) {
+				if (lastTrip[stop] != t) {
+					lastTrip[stop] = t;
+					offsets[stop + 1]++;
+				}
+			}
+		}
+
+		// turn the counts into offsets
+		for (int i = 0; i < stopCount; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+
+		// fill in the trip indices, since the trips are visited in order each slice
+		// ends up sorted
+		tripIds = new int[offsets[stopCount]];
+		int[] next = new int[stopCount];
+		System.arraycopy(offsets, 0, next, 0, stopCount);
+		Arrays.fill(lastTrip, -1);
+
+		for (int t = 0; t < tripStops.size(); t++) {
+			for (int stop : tripStops.get(t)) {
+				if (lastTrip[stop] != t) {
+					lastTrip[stop] = t;
+					tripIds[next[stop]++] = t;
+				}
+			}
+		}
+	}
+
+	/**
+	 * returns the number of distinct trips that go through a stop.
+	 *
+	 * @param stop the stop to look up
+	 * @return the number of distinct trips that go through the stop
+	 */
+	public int getTripCount(Stop stop) {
+		int i = stop.getIndex();
+		return offsets[i + 1] - offsets[i];
+	}
+
+	/**
+	 * returns the nth trip that goes through a stop, ordered by the position of the
+	 * trip in the trips file.
+	 *
+	 * @param stop the stop to look up
+	 * @param n    the position of the trip within the stop's trips
+	 * @return the nth trip that goes through the stop
+	 */
+	public Trip getTrip(Stop stop, int n) {
+		return trips[tripIds[offsets[stop.getIndex()] + n]];
+	}
+
+	/**
+	 * finds the trips that go through both of the given stops, by walking their
+	 * sorted lists of trips side by side.
+	 *
+	 * @param a the first stop
+	 * @param b the second stop
+	 * @return a list of trips that serve both stops
+	 */
+	public ArrayList<Trip> getSharedTrips(Stop a, Stop b) {
+		ArrayList<Trip> shared = new ArrayList<>();
+
+		int i = offsets[a.getIndex()];
+		int iEnd = offsets[a.getIndex() + 1];
+		int j = offsets[b.getIndex()];
+		int jEnd = offsets[b.getIndex() + 1];
+
+		while (i < iEnd && j < jEnd) {
+			int tripA = tripIds[i];
+			int tripB = tripIds[j];
+
+			if (tripA < tripB) {
+				i++;
+			} else if (tripA > tripB) {
+				j++;
+			} else {
+				shared.add(trips[tripA]);
+				i++;
+				j++;
+			}
+		}
+
+		return shared;
+	}
+}
@@ -0,0 +1,89 @@
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import structures.ArticulationPoint;
+import structures.BiconnectedComponents;
+import structures.BlockCutTree;
+import structures.IndexedGraph;
+import template.Graph;
+import template.Node;
+import template.Segment;
+
+/**
+ * closes 1% of the segments of a data set one at a time, and compares the time
+ * BlockCutTree takes to update, and answer queries with the time a full search
+ * takes. The data directory, which has to have a segment file, is the first
+ * argument.
+ */
+public class ClosureBenchmark {
+	// the seed used to pick the closed segments
+	private static final long SEED = 261;
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println("Usage: java benchmark.ClosureBenchmark directory");
+			return;
+		}
+
+		Graph graph = SpanningTreeBenchmark.loadGraph(args[0]);
+		ArrayList<Node> nodes = new ArrayList<>(graph.nodes.values());
+		IndexedGraph indexedGraph = new IndexedGraph(nodes, graph.segments);
+
+		List<Segment> closures = new ArrayList<>(graph.segments);
+		Collections.shuffle(closures, new Random(SEED));
+		closures = closures.subList(0, Math.max(1, closures.size() / 100));
+
+		long start = System.nanoTime();
+		BlockCutTree tree = new BlockCutTree(indexedGraph);
+		long buildTime = System.nanoTime() - start;
+
+		// close the segments, asking about both of its end points before each closure
+		long updateTime = 0;
+		long queryTime = 0;
+		int bridges = 0;
+		for (Segment segment : closures) {
+			start = System.nanoTime();
+			if (tree.isBridge(segment)) {
+				bridges++;
+			}
+			tree.isArticulationPoint(segment.start);
+			tree.isArticulationPoint(segment.end);
+			queryTime += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			tree.closeSegment(segment);
+			updateTime += System.nanoTime() - start;
+		}
+
+		// search the remaining graph from scratch
+		ArrayList<Segment> open = tree.getOpenSegments();
+		start = System.nanoTime();
+		BiconnectedComponents components = new BiconnectedComponents(new IndexedGraph(nodes, open));
+		components.search();
+		long searchTime = System.nanoTime() - start;
+
+		// ArticulationPoint follows the nodes' segments, so take the closed ones out
+		for (Segment segment : closures) {
+			segment.start.segments.remove(segment);
+			segment.end.segments.remove(segment);
+		}
+		start = System.nanoTime();
+		int oldPoints = new ArticulationPoint().getPoints(nodes).size();
+		long oldSearchTime = System.nanoTime() - start;
+
+		boolean same = new HashSet<>(tree.getPoints()).equals(new HashSet<>(components.getPoints()));
+
+		System.out.println("nodes: " + nodes.size() + ", segments: " + indexedGraph.getEdgeCount());
+		System.out.printf("BlockCutTree build: %.2f ms%n", buildTime / 1e6);
+		System.out.printf("%d closures (%d bridges): %.2f us per update, %.3f us per query%n", closures.size(),
+				bridges, updateTime / 1e3 / closures.size(), queryTime / 1e3 / (3 * closures.size()));
+		System.out.printf("full BiconnectedComponents search: %.2f ms%n", searchTime / 1e6);
+		System.out.printf("full ArticulationPoint search: %.2f ms (%d points)%n", oldSearchTime / 1e6, oldPoints);
+		System.out.println("articulation points: " + tree.getPoints().size() + ", same as full search: " + same);
+	}
+}
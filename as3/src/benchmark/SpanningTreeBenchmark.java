@@ -0,0 +1,144 @@
+package benchmark;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import structures.DynamicSpanningForest;
+import structures.IndexedGraph;
+import structures.MinimumSpanningTree;
+import structures.SpanningForest;
+import template.Graph;
+import template.Segment;
+
+/**
+ * compares the running time of MinimumSpanningTree.kruskalAlgorithm with
+ * SpanningForest.kruskal, and SpanningForest.boruvka on 1, 2, 4, and 8 threads.
+ * It also times adding the last 1% of the segments to a DynamicSpanningForest.
+ * The data directory, which has to have a segment file, is the first argument.
+ */
+public class SpanningTreeBenchmark {
+	// the number of untimed runs, and timed runs of each implementation
+	private static final int WARM_UP = 3;
+	private static final int RUNS = 10;
+
+	public static void main(String[] args) {
+		if (args.length == 0) {
+			System.out.println("Usage: java benchmark.SpanningTreeBenchmark directory");
+			return;
+		}
+
+		Graph graph = loadGraph(args[0]);
+		System.out.println("nodes: " + graph.nodes.size() + ", segments: " + graph.segments.size());
+
+		// the current implementation
+		double oldLength = 0;
+		long oldTime = Long.MAX_VALUE;
+		for (int i = 0; i < WARM_UP + RUNS; i++) {
+			long start = System.nanoTime();
+			ArrayList<Segment> segments = new MinimumSpanningTree().kruskalAlgorithm(graph);
+			long time = System.nanoTime() - start;
+
+			if (i >= WARM_UP) {
+				oldTime = Math.min(oldTime, time);
+			}
+			oldLength = totalLength(segments);
+		}
+
+		// the int array implementation, including building the indexed graph
+		double newLength = 0;
+		long newTime = Long.MAX_VALUE;
+		for (int i = 0; i < WARM_UP + RUNS; i++) {
+			long start = System.nanoTime();
+			SpanningForest forest = new SpanningForest(new IndexedGraph(graph.nodes.values(), graph.segments));
+			forest.kruskal();
+			long time = System.nanoTime() - start;
+
+			if (i >= WARM_UP) {
+				newTime = Math.min(newTime, time);
+			}
+			newLength = forest.getLength();
+		}
+
+		System.out.printf("MinimumSpanningTree: %.2f ms, total length %.4f%n", oldTime / 1e6, oldLength);
+		System.out.printf("SpanningForest:      %.2f ms, total length %.4f%n", newTime / 1e6, newLength);
+		System.out.printf("speedup: %.1fx%n", (double) oldTime / newTime);
+
+		// the parallel implementation, on the same indexed graph for every pool size
+		IndexedGraph indexedGraph = new IndexedGraph(graph.nodes.values(), graph.segments);
+		long oneThreadTime = 0;
+		for (int threads : new int[] { 1, 2, 4, 8 }) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			double length = 0;
+			long best = Long.MAX_VALUE;
+
+			for (int i = 0; i < WARM_UP + RUNS; i++) {
+				long start = System.nanoTime();
+				SpanningForest forest = new SpanningForest(indexedGraph);
+				forest.boruvka(pool);
+				long time = System.nanoTime() - start;
+
+				if (i >= WARM_UP) {
+					best = Math.min(best, time);
+				}
+				length = forest.getLength();
+			}
+
+			pool.shutdown();
+			if (threads == 1) {
+				oneThreadTime = best;
+			}
+
+			System.out.printf("Boruvka, %d threads: %.2f ms, total length %.4f, speedup over 1 thread %.2fx%n",
+					threads, best / 1e6, length, (double) oneThreadTime / best);
+		}
+
+		// hold back the last 1% of the segments, and add them to the built forest
+		List<Segment> segments = new ArrayList<>(graph.segments);
+		int split = segments.size() - Math.max(1, segments.size() / 100);
+		List<Segment> initial = segments.subList(0, split);
+		List<Segment> added = segments.subList(split, segments.size());
+
+		long updateTime = Long.MAX_VALUE;
+		double dynamicLength = 0;
+		for (int i = 0; i < WARM_UP + RUNS; i++) {
+			DynamicSpanningForest forest = new DynamicSpanningForest(new IndexedGraph(graph.nodes.values(), initial));
+			long start = System.nanoTime();
+			forest.addSegments(added);
+			long time = System.nanoTime() - start;
+
+			if (i >= WARM_UP) {
+				updateTime = Math.min(updateTime, time);
+			}
+			dynamicLength = forest.getLength();
+		}
+
+		System.out.printf("DynamicSpanningForest, adding %d segments: %.2f ms, total length %.4f%n", added.size(),
+				updateTime / 1e6, dynamicLength);
+	}
+
+	/**
+	 * loads the data set in a directory, which the benchmarks can't run without
+	 * the segments of.
+	 */
+	static Graph loadGraph(String directory) {
+		File segments = new File(directory, "roadSeg-roadID-length-nodeID-nodeID-coords.tab");
+		if (!segments.isFile()) {
+			throw new IllegalArgumentException(directory + " has no segment file");
+		}
+
+		return new Graph(new File(directory, "nodeID-lat-lon.tab"), new File(directory, "roadID-roadInfo.tab"),
+				segments, new File(directory, "polygon-shapes.mp"));
+	}
+
+	static double totalLength(ArrayList<Segment> segments) {
+		double length = 0;
+
+		for (Segment segment : segments) {
+			length += segment.length;
+		}
+
+		return length;
+	}
+}
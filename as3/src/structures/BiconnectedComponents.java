@@ -0,0 +1,352 @@
+package structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import template.Node;
+import template.Segment;
+
+/**
+ * finds the articulation points, bridges, and biconnected components of an
+ * indexed graph with an iterative version of the Hopcroft-Tarjan algorithm. All
+ * the state of the search is kept in int arrays indexed by node, or edge.
+ */
+public class BiconnectedComponents {
+	// marks nodes that haven't been reached by the search yet
+	static final int UNVISITED = -1;
+	// the number of nodes a single task searches before it splits its parts
+	private static final int THRESHOLD = 8192;
+
+	final IndexedGraph graph;
+	// the depth of each node in the DFS tree, and the smallest depth it can reach
+	// back to
+	final int[] depth;
+	final int[] reachBack;
+	// the edge used to reach each node, and the next adjacency entry to look at
+	final int[] parentEdge;
+	final int[] cursor;
+	// the results of the search
+	final boolean[] isAP;
+	final boolean[] isBridge;
+	// the biconnected component each edge belongs to, self loops don't belong to
+	// any component
+	final int[] blockOf;
+	int blockCount = 0;
+	// the number of articulation points in each part of the graph
+	private ArrayList<Integer> graphSizes = new ArrayList<>();
+
+	public BiconnectedComponents(IndexedGraph graph) {
+		this.graph = graph;
+		depth = new int[graph.nodeCount];
+		reachBack = new int[graph.nodeCount];
+		parentEdge = new int[graph.nodeCount];
+		cursor = new int[graph.nodeCount];
+		isAP = new boolean[graph.nodeCount];
+		isBridge = new boolean[graph.edgeCount];
+		blockOf = new int[graph.edgeCount];
+		reset();
+	}
+
+	/**
+	 * searches every part of the graph, starting each search from the unvisited
+	 * node with the smallest index.
+	 */
+	public void search() {
+		reset();
+		Search search = new Search(graph.nodeCount, graph.edgeCount);
+
+		for (int root = 0; root < graph.nodeCount; root++) {
+			if (depth[root] == UNVISITED) {
+				graphSizes.add(search.run(root));
+			}
+		}
+
+		blockCount = search.blockCount;
+	}
+
+	/**
+	 * labels the separate parts of the graph first, and then searches each part as
+	 * its own fork-join task. The results, including the order of the graph sizes,
+	 * are the same as the ones of search().
+	 */
+	public void searchParallel(ForkJoinPool pool) {
+		reset();
+		ParallelUnionFind sets = new ParallelUnionFind(graph.nodeCount);
+		sets.unionAll(graph, pool);
+
+		// number the parts by their smallest node, which is the order search() finds
+		// them in, and count their nodes, and edges
+		int[] partOf = new int[graph.nodeCount];
+		int[] roots = new int[graph.nodeCount];
+		int[] partNodes = new int[graph.nodeCount + 1];
+		int[] partEdges = new int[graph.nodeCount];
+		int parts = 0;
+
+		for (int i = 0; i < graph.nodeCount; i++) {
+			int root = sets.find(i);
+			if (root == i) {
+				roots[parts] = i;
+				partOf[i] = parts++;
+			} else {
+				partOf[i] = partOf[root];
+			}
+			partNodes[partOf[i] + 1]++;
+		}
+
+		for (int e = 0; e < graph.edgeCount; e++) {
+			partEdges[partOf[graph.edgeStart[e]]]++;
+		}
+
+		// turn the node counts into a running total, to size the tasks
+		for (int i = 0; i < parts; i++) {
+			partNodes[i + 1] += partNodes[i];
+		}
+
+		int[] points = new int[parts];
+		int[] blocks = new int[parts];
+		pool.invoke(new PartTask(roots, partNodes, partEdges, points, blocks, 0, parts));
+
+		// each part numbered its components from 0, so move them after the components
+		// of the parts before it
+		int[] blockBase = new int[parts];
+		for (int i = 0; i < parts; i++) {
+			blockBase[i] = blockCount;
+			blockCount += blocks[i];
+			graphSizes.add(points[i]);
+		}
+
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (blockOf[e] >= 0) {
+				blockOf[e] += blockBase[partOf[graph.edgeStart[e]]];
+			}
+		}
+	}
+
+	/**
+	 * reset the results of the previous search
+	 */
+	void reset() {
+		Arrays.fill(depth, UNVISITED);
+		Arrays.fill(isAP, false);
+		Arrays.fill(isBridge, false);
+		Arrays.fill(blockOf, -1);
+		blockCount = 0;
+		graphSizes.clear();
+	}
+
+	/**
+	 * the stacks of a depth first search. A search only touches the nodes, and
+	 * edges that are connected to its root, so searches over different parts of
+	 * the graph can share the per node arrays.
+	 */
+	class Search {
+		// the path from the root to the current node
+		private final int[] nodeStack;
+		// the tree, and back edges of the biconnected component being built
+		private final int[] edgeStack;
+		// the number of components this search has found
+		int blockCount = 0;
+
+		Search(int maxNodes, int maxEdges) {
+			nodeStack = new int[maxNodes];
+			edgeStack = new int[maxEdges];
+		}
+
+		/**
+		 * searches the part of the graph that's connected to the root node.
+		 *
+		 * @return the number of articulation points that were found
+		 */
+		int run(int root) {
+			int[] adjStart = graph.adjStart;
+			int[] adjNode = graph.adjNode;
+			int[] adjEdge = graph.adjEdge;
+
+			int points = 0;
+			int subTrees = 0;
+			int top = 0;
+			int edgeTop = 0;
+
+			depth[root] = 0;
+			reachBack[root] = 0;
+			parentEdge[root] = -1;
+			cursor[root] = adjStart[root];
+			nodeStack[top++] = root;
+
+			while (top > 0) {
+				int current = nodeStack[top - 1];
+
+				if (cursor[current] < adjStart[current + 1]) {
+					// look at the current node's next neighbour
+					int i = cursor[current]++;
+					int neighbour = adjNode[i];
+					int edge = adjEdge[i];
+
+					// don't go back through the edge we came from
+					if (edge == parentEdge[current]) {
+						continue;
+					}
+
+					if (depth[neighbour] == UNVISITED) {
+						// tree edge, go down to the neighbour
+						depth[neighbour] = depth[current] + 1;
+						reachBack[neighbour] = depth[neighbour];
+						parentEdge[neighbour] = edge;
+						cursor[neighbour] = adjStart[neighbour];
+						edgeStack[edgeTop++] = edge;
+						nodeStack[top++] = neighbour;
+
+						if (current == root) {
+							subTrees++;
+						}
+					} else if (depth[neighbour] < depth[current]) {
+						// back edge to an ancestor, ie. we found an alternative path
+						reachBack[current] = Math.min(reachBack[current], depth[neighbour]);
+						edgeStack[edgeTop++] = edge;
+					}
+				} else {
+					// all the current node's neighbours have been visited, go back up
+					top--;
+
+					if (current == root) {
+						continue;
+					}
+
+					int parent = nodeStack[top - 1];
+					reachBack[parent] = Math.min(reachBack[parent], reachBack[current]);
+
+					// the current node's subtree can't reach above its parent, so the
+					// edges on top of the stack make up a biconnected component
+					if (reachBack[current] >= depth[parent]) {
+						int edge;
+						do {
+							edge = edgeStack[--edgeTop];
+							blockOf[edge] = blockCount;
+						} while (edge != parentEdge[current]);
+						blockCount++;
+
+						if (reachBack[current] > depth[parent]) {
+							isBridge[edge] = true;
+						}
+
+						// the root is handled separately, since it has no parent
+						if (parent != root && !isAP[parent]) {
+							isAP[parent] = true;
+							points++;
+						}
+					}
+				}
+			}
+
+			// the root is an articulation point if it has more than one subtree
+			if (subTrees > 1) {
+				isAP[root] = true;
+				points++;
+			}
+
+			return points;
+		}
+	}
+
+	/**
+	 * searches a range of parts of the graph, splitting the range in half while it
+	 * holds more than one part, and too many nodes.
+	 */
+	@SuppressWarnings("serial")
+	private class PartTask extends RecursiveAction {
+		private final int[] roots, partNodes, partEdges, points, blocks;
+		private final int from, to;
+
+		PartTask(int[] roots, int[] partNodes, int[] partEdges, int[] points, int[] blocks, int from, int to) {
+			this.roots = roots;
+			this.partNodes = partNodes;
+			this.partEdges = partEdges;
+			this.points = points;
+			this.blocks = blocks;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1 && partNodes[to] - partNodes[from] > THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new PartTask(roots, partNodes, partEdges, points, blocks, from, middle),
+						new PartTask(roots, partNodes, partEdges, points, blocks, middle, to));
+				return;
+			}
+
+			// size the stacks for the largest part in the range
+			int maxNodes = 0;
+			int maxEdges = 0;
+			for (int i = from; i < to; i++) {
+				maxNodes = Math.max(maxNodes, partNodes[i + 1] - partNodes[i]);
+				maxEdges = Math.max(maxEdges, partEdges[i]);
+			}
+
+			Search search = new Search(maxNodes, maxEdges);
+			for (int i = from; i < to; i++) {
+				search.blockCount = 0;
+				points[i] = search.run(roots[i]);
+				blocks[i] = search.blockCount;
+			}
+		}
+	}
+
+	/**
+	 * getters
+	 */
+
+	public ArrayList<Node> getPoints() {
+		ArrayList<Node> points = new ArrayList<>();
+
+		for (int i = 0; i < graph.nodeCount; i++) {
+			if (isAP[i]) {
+				points.add(graph.getNode(i));
+			}
+		}
+
+		return points;
+	}
+
+	public ArrayList<Segment> getBridges() {
+		ArrayList<Segment> bridges = new ArrayList<>();
+
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (isBridge[e]) {
+				bridges.add(graph.getSegment(e));
+			}
+		}
+
+		return bridges;
+	}
+
+	/**
+	 * returns the segments of each biconnected component.
+	 */
+	public ArrayList<ArrayList<Segment>> getBiconnectedComponents() {
+		ArrayList<ArrayList<Segment>> blocks = new ArrayList<>();
+
+		for (int i = 0; i < blockCount; i++) {
+			blocks.add(new ArrayList<>());
+		}
+
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (blockOf[e] >= 0) {
+				blocks.get(blockOf[e]).add(graph.getSegment(e));
+			}
+		}
+
+		return blocks;
+	}
+
+	public int getBlockCount() {
+		return blockCount;
+	}
+
+	public ArrayList<Integer> getGraphSizes() {
+		return graphSizes;
+	}
+}
@@ -0,0 +1,318 @@
+package structures;
+
+import java.util.ArrayList;
+
+import template.Node;
+import template.Segment;
+
+/**
+ * answers whether a node is an articulation point, and whether closing a
+ * segment would split the network, while segments are being closed. It keeps
+ * the biconnected components (blocks) of the graph, and how many blocks each
+ * node is part of, since a node is an articulation point exactly when it's in
+ * more than one block.
+ *
+ * closing a segment only changes the block it belongs to, so only that block is
+ * searched again, and replaced by the blocks of what's left of it.
+ */
+public class BlockCutTree {
+	private final IndexedGraph graph;
+	// marks the closed segments
+	private final boolean[] closed;
+	// the block each segment belongs to, self loops don't belong to any block
+	private final int[] blockOf;
+	// the segments of each block, or null for blocks that have been replaced. A
+	// block is replaced as soon as one of its segments is closed, so the segments
+	// of a block are always open
+	private final ArrayList<int[]> blocks = new ArrayList<>();
+	// the number of blocks each node is part of
+	private final int[] blockCounts;
+
+	// the local index of each node in the block being searched again, and the
+	// block it was last numbered for
+	private final int[] localIndex;
+	private final int[] localStamp;
+	private int stamp = 0;
+
+	public BlockCutTree(IndexedGraph graph) {
+		this.graph = graph;
+		closed = new boolean[graph.edgeCount];
+		blockCounts = new int[graph.nodeCount];
+		localIndex = new int[graph.nodeCount];
+		localStamp = new int[graph.nodeCount];
+
+		BiconnectedComponents components = new BiconnectedComponents(graph);
+		components.search();
+		blockOf = components.blockOf.clone();
+
+		// group the segments by block
+		int[] sizes = new int[components.blockCount];
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (blockOf[e] >= 0) {
+				sizes[blockOf[e]]++;
+			}
+		}
+
+		for (int b = 0; b < components.blockCount; b++) {
+			blocks.add(new int[sizes[b]]);
+		}
+
+		int[] filled = new int[components.blockCount];
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (blockOf[e] >= 0) {
+				blocks.get(blockOf[e])[filled[blockOf[e]]++] = e;
+			}
+		}
+
+		for (int b = 0; b < components.blockCount; b++) {
+			countNodes(blocks.get(b), 1);
+		}
+	}
+
+	/**
+	 * closes a segment, and updates the blocks it was part of.
+	 */
+	public void closeSegment(Segment segment) {
+		closeSegment(graph.indexOf(segment));
+	}
+
+	public void closeSegment(int edge) {
+		if (closed[edge]) {
+			return;
+		}
+
+		closed[edge] = true;
+		int block = blockOf[edge];
+		blockOf[edge] = -1;
+
+		if (block < 0) {
+			return;
+		}
+
+		// take the block out
+		int[] oldEdges = blocks.get(block);
+		countNodes(oldEdges, -1);
+		blocks.set(block, null);
+
+		// a bridge just disappears, otherwise what's left of the block is searched
+		// again
+		int[] edges = openEdges(oldEdges);
+		if (edges.length > 0) {
+			splitBlock(edges);
+		}
+	}
+
+	/**
+	 * finds the blocks of a set of segments that used to make up one block, and
+	 * adds them in its place.
+	 */
+	private void splitBlock(int[] edges) {
+		// number the nodes of the segments from 0
+		stamp++;
+		int nodeCount = 0;
+		int[] starts = new int[edges.length];
+		int[] ends = new int[edges.length];
+
+		for (int i = 0; i < edges.length; i++) {
+			int start = graph.edgeStart[edges[i]];
+			int end = graph.edgeEnd[edges[i]];
+
+			if (localStamp[start] != stamp) {
+				localStamp[start] = stamp;
+				localIndex[start] = nodeCount++;
+			}
+			if (localStamp[end] != stamp) {
+				localStamp[end] = stamp;
+				localIndex[end] = nodeCount++;
+			}
+
+			starts[i] = localIndex[start];
+			ends[i] = localIndex[end];
+		}
+
+		BiconnectedComponents components = new BiconnectedComponents(new IndexedGraph(nodeCount, starts, ends));
+		components.search();
+
+		// give each of the new blocks its own number
+		int firstBlock = blocks.size();
+		int[] sizes = new int[components.blockCount];
+		for (int i = 0; i < edges.length; i++) {
+			sizes[components.blockOf[i]]++;
+		}
+
+		for (int b = 0; b < components.blockCount; b++) {
+			blocks.add(new int[sizes[b]]);
+		}
+
+		int[] filled = new int[components.blockCount];
+		for (int i = 0; i < edges.length; i++) {
+			int block = components.blockOf[i];
+			blocks.get(firstBlock + block)[filled[block]++] = edges[i];
+			blockOf[edges[i]] = firstBlock + block;
+		}
+
+		for (int b = firstBlock; b < blocks.size(); b++) {
+			countNodes(blocks.get(b), 1);
+		}
+	}
+
+	/**
+	 * returns the segments of a block that are still open.
+	 */
+	private int[] openEdges(int[] edges) {
+		int size = 0;
+		for (int e : edges) {
+			if (!closed[e]) {
+				size++;
+			}
+		}
+
+		int[] open = new int[size];
+		size = 0;
+		for (int e : edges) {
+			if (!closed[e]) {
+				open[size++] = e;
+			}
+		}
+
+		return open;
+	}
+
+	/**
+	 * adds a change to the block count of every node in a block.
+	 */
+	private void countNodes(int[] edges, int change) {
+		stamp++;
+
+		for (int e : edges) {
+			int start = graph.edgeStart[e];
+			int end = graph.edgeEnd[e];
+
+			if (localStamp[start] != stamp) {
+				localStamp[start] = stamp;
+				blockCounts[start] += change;
+			}
+			if (localStamp[end] != stamp) {
+				localStamp[end] = stamp;
+				blockCounts[end] += change;
+			}
+		}
+	}
+
+	/**
+	 * checks if a node is an articulation point.
+	 */
+	public boolean isArticulationPoint(Node node) {
+		return isArticulationPoint(graph.indexOf(node));
+	}
+
+	public boolean isArticulationPoint(int node) {
+		return blockCounts[node] > 1;
+	}
+
+	/**
+	 * checks if closing a segment would disconnect its end points, ie. the segment
+	 * is the only open segment in its block.
+	 */
+	public boolean isBridge(Segment segment) {
+		return isBridge(graph.indexOf(segment));
+	}
+
+	public boolean isBridge(int edge) {
+		return blockOf[edge] >= 0 && blocks.get(blockOf[edge]).length == 1;
+	}
+
+	/**
+	 * returns all the articulation points.
+	 */
+	public ArrayList<Node> getPoints() {
+		ArrayList<Node> points = new ArrayList<>();
+
+		for (int i = 0; i < graph.nodeCount; i++) {
+			if (blockCounts[i] > 1) {
+				points.add(graph.getNode(i));
+			}
+		}
+
+		return points;
+	}
+
+	/**
+	 * returns the segments whose closure would split the network, in index order.
+	 */
+	public ArrayList<Segment> getBridges() {
+		ArrayList<Segment> bridges = new ArrayList<>();
+
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (isBridge(e)) {
+				bridges.add(graph.getSegment(e));
+			}
+		}
+
+		return bridges;
+	}
+
+	/**
+	 * returns the number of articulation points in each part of what's left of
+	 * the graph, in the order of the parts' smallest nodes, like
+	 * BiconnectedComponents.getGraphSizes.
+	 */
+	public ArrayList<Integer> getGraphSizes() {
+		UnionFind sets = new UnionFind(graph.nodeCount);
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (!closed[e]) {
+				sets.union(graph.edgeStart[e], graph.edgeEnd[e]);
+			}
+		}
+
+		// number the parts from 1 as their smallest nodes are reached, 0 marks a
+		// part that hasn't been reached yet
+		int[] partOf = new int[graph.nodeCount];
+		ArrayList<Integer> sizes = new ArrayList<>();
+
+		for (int i = 0; i < graph.nodeCount; i++) {
+			int root = sets.find(i);
+			if (partOf[root] == 0) {
+				sizes.add(0);
+				partOf[root] = sizes.size();
+			}
+
+			if (blockCounts[i] > 1) {
+				int part = partOf[root] - 1;
+				sizes.set(part, sizes.get(part) + 1);
+			}
+		}
+
+		return sizes;
+	}
+
+	/**
+	 * returns the number of blocks that haven't been replaced.
+	 */
+	public int getBlockCount() {
+		int count = 0;
+
+		for (int[] block : blocks) {
+			if (block != null) {
+				count++;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * returns the segments that haven't been closed, in index order.
+	 */
+	public ArrayList<Segment> getOpenSegments() {
+		ArrayList<Segment> open = new ArrayList<>();
+
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (!closed[e]) {
+				open.add(graph.getSegment(e));
+			}
+		}
+
+		return open;
+	}
+}
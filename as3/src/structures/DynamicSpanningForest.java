@@ -0,0 +1,458 @@
+package structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+import template.Segment;
+
+/**
+ * keeps the minimum spanning forest of the road graph up to date as segments
+ * are added to it, without recomputing it from scratch. The forest is stored
+ * as a link-cut tree, where every forest edge is its own tree node between its
+ * two end points, so the longest edge on the path between two nodes can be
+ * found in O(log n) amortized time.
+ *
+ * when a segment is added between two trees it joins them, otherwise it replaces
+ * the longest edge on the path between its end points if it's shorter than that
+ * edge (the cycle property). Like SpanningForest, edges of the same length are
+ * ordered by index, and new segments are numbered after the existing ones.
+ */
+public class DynamicSpanningForest {
+	// marks a missing child, or parent
+	private static final int NONE = -1;
+
+	private final IndexedGraph graph;
+	// the number of nodes, tree node i < nodeCount is a graph node, and tree node
+	// nodeCount + e is edge e
+	private final int nodeCount;
+	// the segments, end points, and lengths of all the edges, including the new ones
+	private final ArrayList<Segment> segments = new ArrayList<>();
+	private int[] edgeStart;
+	private int[] edgeEnd;
+	private double[] edgeLength;
+	private boolean[] inForest;
+	private int edgeCount;
+
+	// the link-cut tree, the children, and parent of each tree node in its splay
+	// tree, where a parent that doesn't have the node as a child is a path parent
+	private int[] left;
+	private int[] right;
+	private int[] parent;
+	// marks splay trees whose children have to be swapped
+	private boolean[] flipped;
+	// the longest edge's tree node in each splay tree
+	private int[] longest;
+	// the path from a node up to the root of its splay tree, used by splay
+	private int[] splayPath;
+
+	// the total length, and number of trees in the forest
+	private double length = 0;
+	private int treeCount;
+
+	/**
+	 * builds the forest of the graph's current segments with Kruskal's algorithm.
+	 */
+	public DynamicSpanningForest(IndexedGraph graph) {
+		this.graph = graph;
+		nodeCount = graph.nodeCount;
+		treeCount = nodeCount;
+
+		int capacity = Math.max(graph.edgeCount, 16);
+		edgeStart = new int[capacity];
+		edgeEnd = new int[capacity];
+		edgeLength = new double[capacity];
+		inForest = new boolean[capacity];
+		initTree(nodeCount + capacity);
+
+		SpanningForest forest = new SpanningForest(graph);
+		forest.kruskal();
+
+		for (int e = 0; e < graph.edgeCount; e++) {
+			int edge = addEdge(graph.getSegment(e), graph.edgeStart[e], graph.edgeEnd[e], graph.edgeLength[e]);
+
+			if (forest.isInForest(e)) {
+				link(edge);
+			}
+		}
+	}
+
+	/**
+	 * adds a list of changed segments to the forest, one after another.
+	 */
+	public void addSegments(Collection<Segment> segments) {
+		for (Segment segment : segments) {
+			addSegment(segment);
+		}
+	}
+
+	/**
+	 * adds a segment to the graph, and updates the forest.
+	 *
+	 * @return whether the segment is part of the forest
+	 */
+	public boolean addSegment(Segment segment) {
+		int start = graph.indexOf(segment.start);
+		int end = graph.indexOf(segment.end);
+		int edge = addEdge(segment, start, end, segment.length);
+
+		// a segment that starts, and ends at the same node can't be part of a tree
+		if (start == end) {
+			return false;
+		}
+
+		// the segment joins two trees
+		if (findRoot(start) != findRoot(end)) {
+			link(edge);
+			return true;
+		}
+
+		// otherwise it closes a cycle, and replaces the longest edge on the cycle if
+		// it's shorter than it
+		makeRoot(start);
+		access(end);
+		int other = longest[end] - nodeCount;
+
+		if (!isShorter(edge, other)) {
+			return false;
+		}
+
+		cut(other);
+		link(edge);
+		return true;
+	}
+
+	/**
+	 * stores a new edge, growing the arrays if they're full.
+	 */
+	private int addEdge(Segment segment, int start, int end, double length) {
+		if (edgeCount == edgeStart.length) {
+			int capacity = edgeCount * 2;
+			edgeStart = Arrays.copyOf(edgeStart, capacity);
+			edgeEnd = Arrays.copyOf(edgeEnd, capacity);
+			edgeLength = Arrays.copyOf(edgeLength, capacity);
+			inForest = Arrays.copyOf(inForest, capacity);
+			growTree(nodeCount + capacity);
+		}
+
+		int edge = edgeCount++;
+		segments.add(segment);
+		edgeStart[edge] = start;
+		edgeEnd[edge] = end;
+		edgeLength[edge] = length;
+		return edge;
+	}
+
+	/**
+	 * adds an edge to the forest, joining the trees of its end points.
+	 */
+	private void link(int edge) {
+		int node = nodeCount + edge;
+
+		makeRoot(edgeStart[edge]);
+		parent[edgeStart[edge]] = node;
+		makeRoot(edgeEnd[edge]);
+		parent[edgeEnd[edge]] = node;
+
+		inForest[edge] = true;
+		length += edgeLength[edge];
+		treeCount--;
+	}
+
+	/**
+	 * removes an edge from the forest, splitting its tree in two.
+	 */
+	private void cut(int edge) {
+		int node = nodeCount + edge;
+
+		cutFrom(node, edgeStart[edge]);
+		cutFrom(node, edgeEnd[edge]);
+
+		inForest[edge] = false;
+		length -= edgeLength[edge];
+		treeCount++;
+	}
+
+	/**
+	 * removes the tree edge between two adjacent tree nodes.
+	 */
+	private void cutFrom(int x, int y) {
+		makeRoot(x);
+		access(y);
+		// x is now y's only left descendant
+		parent[left[y]] = NONE;
+		left[y] = NONE;
+		update(y);
+	}
+
+	/**
+	 * compares two edges by length, and by index if their lengths are the same.
+	 */
+	private boolean isShorter(int edge, int other) {
+		return edgeLength[edge] < edgeLength[other] || (edgeLength[edge] == edgeLength[other] && edge < other);
+	}
+
+	/**
+	 * link-cut tree operations
+	 */
+
+	private void initTree(int size) {
+		left = new int[size];
+		right = new int[size];
+		parent = new int[size];
+		flipped = new boolean[size];
+		longest = new int[size];
+		splayPath = new int[size];
+		Arrays.fill(left, NONE);
+		Arrays.fill(right, NONE);
+		Arrays.fill(parent, NONE);
+
+		for (int i = 0; i < size; i++) {
+			longest[i] = i;
+		}
+	}
+
+	private void growTree(int size) {
+		int oldSize = left.length;
+		left = Arrays.copyOf(left, size);
+		right = Arrays.copyOf(right, size);
+		parent = Arrays.copyOf(parent, size);
+		flipped = Arrays.copyOf(flipped, size);
+		longest = Arrays.copyOf(longest, size);
+		splayPath = new int[size];
+		Arrays.fill(left, oldSize, size, NONE);
+		Arrays.fill(right, oldSize, size, NONE);
+		Arrays.fill(parent, oldSize, size, NONE);
+
+		for (int i = oldSize; i < size; i++) {
+			longest[i] = i;
+		}
+	}
+
+	/**
+	 * returns the longer of two tree nodes, graph nodes count as shorter than any
+	 * edge.
+	 */
+	private int longer(int x, int y) {
+		if (y < nodeCount) {
+			return x;
+		}
+		if (x < nodeCount) {
+			return y;
+		}
+
+		return isShorter(x - nodeCount, y - nodeCount) ? y : x;
+	}
+
+	/**
+	 * recomputes the longest edge of a splay tree from its children.
+	 */
+	private void update(int x) {
+		int max = x;
+
+		if (left[x] != NONE) {
+			max = longer(max, longest[left[x]]);
+		}
+		if (right[x] != NONE) {
+			max = longer(max, longest[right[x]]);
+		}
+
+		longest[x] = max;
+	}
+
+	/**
+	 * swaps a node's children if it's been flipped, and passes the flip down.
+	 */
+	private void pushDown(int x) {
+		if (!flipped[x]) {
+			return;
+		}
+
+		int temp = left[x];
+		left[x] = right[x];
+		right[x] = temp;
+
+		if (left[x] != NONE) {
+			flipped[left[x]] ^= true;
+		}
+		if (right[x] != NONE) {
+			flipped[right[x]] ^= true;
+		}
+
+		flipped[x] = false;
+	}
+
+	/**
+	 * checks if a node is the root of its splay tree.
+	 */
+	private boolean isSplayRoot(int x) {
+		int p = parent[x];
+		return p == NONE || (left[p] != x && right[p] != x);
+	}
+
+	private void rotate(int x) {
+		int p = parent[x];
+		int grandParent = parent[p];
+
+		// put x in p's place
+		if (!isSplayRoot(p)) {
+			if (left[grandParent] == p) {
+				left[grandParent] = x;
+			} else {
+				right[grandParent] = x;
+			}
+		}
+		parent[x] = grandParent;
+
+		if (left[p] == x) {
+			left[p] = right[x];
+			if (right[x] != NONE) {
+				parent[right[x]] = p;
+			}
+			right[x] = p;
+		} else {
+			right[p] = left[x];
+			if (left[x] != NONE) {
+				parent[left[x]] = p;
+			}
+			left[x] = p;
+		}
+
+		parent[p] = x;
+		update(p);
+		update(x);
+	}
+
+	/**
+	 * moves a node to the root of its splay tree.
+	 */
+	private void splay(int x) {
+		// push the flips down from the root of the splay tree first
+		int depth = 0;
+		splayPath[0] = x;
+		while (!isSplayRoot(splayPath[depth])) {
+			splayPath[depth + 1] = parent[splayPath[depth]];
+			depth++;
+		}
+		for (int i = depth; i >= 0; i--) {
+			pushDown(splayPath[i]);
+		}
+
+		while (!isSplayRoot(x)) {
+			int p = parent[x];
+
+			if (!isSplayRoot(p)) {
+				int grandParent = parent[p];
+				// rotate the parent first if x, and its parent are on the same side
+				if ((left[grandParent] == p) == (left[p] == x)) {
+					rotate(p);
+				} else {
+					rotate(x);
+				}
+			}
+
+			rotate(x);
+		}
+	}
+
+	/**
+	 * makes the path from the root of x's tree to x a single splay tree, with x at
+	 * its root.
+	 */
+	private void access(int x) {
+		int last = NONE;
+
+		for (int y = x; y != NONE; y = parent[y]) {
+			splay(y);
+			right[y] = last;
+			update(y);
+			last = y;
+		}
+
+		splay(x);
+	}
+
+	/**
+	 * makes x the root of its tree.
+	 */
+	private void makeRoot(int x) {
+		access(x);
+		flipped[x] ^= true;
+	}
+
+	private int findRoot(int x) {
+		access(x);
+
+		pushDown(x);
+		while (left[x] != NONE) {
+			x = left[x];
+			pushDown(x);
+		}
+
+		splay(x);
+		return x;
+	}
+
+	/**
+	 * getters
+	 */
+
+	public ArrayList<Segment> getSegments() {
+		ArrayList<Segment> forest = new ArrayList<>();
+
+		for (int e = 0; e < edgeCount; e++) {
+			if (inForest[e]) {
+				forest.add(segments.get(e));
+			}
+		}
+
+		return forest;
+	}
+
+	public double getLength() {
+		return length;
+	}
+
+	public int getTreeCount() {
+		return treeCount;
+	}
+
+	/**
+	 * returns the depth of each tree, in the order of their roots. Like
+	 * SpanningForest, this merges the forest's edges in the order Kruskal's
+	 * algorithm would have added them, so the depths match a full kruskal() run
+	 * over all the segments.
+	 */
+	public ArrayList<Integer> getDepths() {
+		int size = 0;
+		for (int e = 0; e < edgeCount; e++) {
+			if (inForest[e]) {
+				size++;
+			}
+		}
+
+		int[] edges = new int[size];
+		double[] lengths = new double[size];
+		size = 0;
+		for (int e = 0; e < edgeCount; e++) {
+			if (inForest[e]) {
+				edges[size] = e;
+				lengths[size++] = edgeLength[e];
+			}
+		}
+
+		UnionFind sets = new UnionFind(nodeCount);
+		for (int i : SpanningForest.sortEdges(lengths)) {
+			sets.union(edgeStart[edges[i]], edgeEnd[edges[i]]);
+		}
+
+		ArrayList<Integer> depths = new ArrayList<>();
+		for (int i = 0; i < nodeCount; i++) {
+			if (sets.find(i) == i) {
+				depths.add(sets.getRank(i));
+			}
+		}
+
+		return depths;
+	}
+}
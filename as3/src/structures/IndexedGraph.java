@@ -0,0 +1,144 @@
+package structures;
+
+import java.util.Collection;
+import java.util.HashMap;
+
+import template.Node;
+import template.Segment;
+
+/**
+ * an int-indexed copy of the road graph. Nodes and segments are numbered from
+ * 0, and the neighbours of each node are stored in compressed sparse row form,
+ * so the neighbours of node i are adjNode[adjStart[i]] to
+ * adjNode[adjStart[i + 1] - 1], reached through the edges in adjEdge.
+ */
+public class IndexedGraph {
+	// the number of nodes, and edges
+	final int nodeCount;
+	final int edgeCount;
+	// the end points of each edge
+	final int[] edgeStart;
+	final int[] edgeEnd;
+	// the length of each edge, only set if the graph was built from the road graph
+	final double[] edgeLength;
+	// the adjacency lists of all the nodes
+	final int[] adjStart;
+	final int[] adjNode;
+	final int[] adjEdge;
+	// the nodes, and segments the indices refer to, if the graph was built from the
+	// road graph
+	private final Node[] nodes;
+	private final Segment[] segments;
+	// map node IDs, and segments to indices
+	private final HashMap<Integer, Integer> indices;
+	private final HashMap<Segment, Integer> segmentIndices;
+
+	/**
+	 * builds an indexed graph from the road graph's nodes, and segments.
+	 */
+	public IndexedGraph(Collection<Node> nodes, Collection<Segment> segments) {
+		this.nodes = nodes.toArray(new Node[0]);
+		this.segments = segments.toArray(new Segment[0]);
+
+		indices = new HashMap<>();
+		for (int i = 0; i < this.nodes.length; i++) {
+			indices.put(this.nodes[i].nodeID, i);
+		}
+
+		edgeStart = new int[this.segments.length];
+		edgeEnd = new int[this.segments.length];
+		edgeLength = new double[this.segments.length];
+		segmentIndices = new HashMap<>();
+		for (int i = 0; i < this.segments.length; i++) {
+			segmentIndices.put(this.segments[i], i);
+			edgeStart[i] = indices.get(this.segments[i].start.nodeID);
+			edgeEnd[i] = indices.get(this.segments[i].end.nodeID);
+			edgeLength[i] = this.segments[i].length;
+		}
+
+		nodeCount = this.nodes.length;
+		edgeCount = this.segments.length;
+		adjStart = new int[nodeCount + 1];
+		adjNode = new int[2 * edgeCount];
+		adjEdge = new int[2 * edgeCount];
+		buildAdjacency();
+	}
+
+	/**
+	 * builds an indexed graph from the end points of each edge, the edges are
+	 * numbered by their position in the arrays.
+	 */
+	public IndexedGraph(int nodeCount, int[] edgeStart, int[] edgeEnd) {
+		this.nodes = null;
+		this.segments = null;
+		this.indices = null;
+		this.segmentIndices = null;
+		this.nodeCount = nodeCount;
+		this.edgeCount = edgeStart.length;
+		this.edgeStart = edgeStart;
+		this.edgeEnd = edgeEnd;
+		this.edgeLength = null;
+		adjStart = new int[nodeCount + 1];
+		adjNode = new int[2 * edgeCount];
+		adjEdge = new int[2 * edgeCount];
+		buildAdjacency();
+	}
+
+	/**
+	 * fills in the adjacency arrays from the edges' end points.
+	 */
+	private void buildAdjacency() {
+		// count the degree of each node
+		for (int e = 0; e < edgeCount; e++) {
+			adjStart[edgeStart[e] + 1]++;
+			adjStart[edgeEnd[e] + 1]++;
+		}
+
+		// turn the degrees into offsets
+		for (int i = 0; i < nodeCount; i++) {
+			adjStart[i + 1] += adjStart[i];
+		}
+
+		// add each edge to the adjacency lists of both of its end points
+		int[] next = new int[nodeCount];
+		System.arraycopy(adjStart, 0, next, 0, nodeCount);
+
+		for (int e = 0; e < edgeCount; e++) {
+			int u = edgeStart[e];
+			int v = edgeEnd[e];
+
+			adjNode[next[u]] = v;
+			adjEdge[next[u]++] = e;
+			adjNode[next[v]] = u;
+			adjEdge[next[v]++] = e;
+		}
+	}
+
+	/**
+	 * getters
+	 */
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public int indexOf(Node node) {
+		return indices.get(node.nodeID);
+	}
+
+	public int indexOf(Segment segment) {
+		return segmentIndices.get(segment);
+	}
+
+	public Node getNode(int i) {
+		return nodes[i];
+	}
+
+	public Segment getSegment(int e) {
+		return segments[e];
+	}
+}
@@ -0,0 +1,105 @@
+package structures;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * labels the connected parts of an indexed graph by merging the end points of
+ * all the edges in parallel. Sets are always linked under the root with the
+ * smaller index, so the root of each part is its smallest node.
+ */
+public class ParallelUnionFind {
+	// the number of edges a single task merges before it splits
+	private static final int THRESHOLD = 4096;
+
+	private final AtomicIntegerArray parent;
+
+	public ParallelUnionFind(int size) {
+		parent = new AtomicIntegerArray(size);
+
+		for (int i = 0; i < size; i++) {
+			parent.set(i, i);
+		}
+	}
+
+	/**
+	 * merges the end points of every edge in the graph.
+	 */
+	public void unionAll(IndexedGraph graph, ForkJoinPool pool) {
+		pool.invoke(new UnionTask(graph, 0, graph.edgeCount));
+	}
+
+	/**
+	 * returns the root of a given node, halving the path on the way up.
+	 */
+	public int find(int x) {
+		while (true) {
+			int p = parent.get(x);
+			if (p == x) {
+				return x;
+			}
+
+			int grandParent = parent.get(p);
+			if (grandParent == p) {
+				return p;
+			}
+
+			// point x to its grand parent, if another thread already changed x's parent
+			// this just fails, which is fine
+			parent.compareAndSet(x, p, grandParent);
+			x = grandParent;
+		}
+	}
+
+	/**
+	 * merges the sets of two nodes.
+	 */
+	public void union(int x, int y) {
+		while (true) {
+			x = find(x);
+			y = find(y);
+
+			if (x == y) {
+				return;
+			}
+
+			// always link the larger root under the smaller one
+			if (x < y) {
+				int temp = x;
+				x = y;
+				y = temp;
+			}
+
+			// only link x if it's still a root, otherwise look for the roots again
+			if (parent.compareAndSet(x, x, y)) {
+				return;
+			}
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private class UnionTask extends RecursiveAction {
+		private final IndexedGraph graph;
+		private final int from, to;
+
+		UnionTask(IndexedGraph graph, int from, int to) {
+			this.graph = graph;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= THRESHOLD) {
+				for (int e = from; e < to; e++) {
+					union(graph.edgeStart[e], graph.edgeEnd[e]);
+				}
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new UnionTask(graph, from, middle), new UnionTask(graph, middle, to));
+		}
+	}
+}
@@ -0,0 +1,316 @@
+package structures;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import template.Segment;
+
+/**
+ * finds the minimum spanning forest of an indexed graph. The edges are sorted
+ * as primitive arrays of (length, index) pairs, and merged with an int array
+ * union-find. Edges of the same length are ordered by index, so the forest is
+ * unique, and both algorithms find the same one.
+ */
+public class SpanningForest {
+	// the number of nodes, or edges a single task handles before it splits
+	private static final int THRESHOLD = 8192;
+
+	private final IndexedGraph graph;
+	// marks the edges that are part of the forest
+	private final boolean[] inForest;
+	// the depth of each tree in the forest
+	private ArrayList<Integer> depths = new ArrayList<>();
+
+	public SpanningForest(IndexedGraph graph) {
+		this.graph = graph;
+		inForest = new boolean[graph.edgeCount];
+	}
+
+	/**
+	 * runs Kruskal's algorithm over the edges sorted by length.
+	 */
+	public void kruskal() {
+		UnionFind sets = new UnionFind(graph.nodeCount);
+		int[] order = sortEdges(graph.edgeLength);
+
+		for (int i = 0; i < order.length && sets.getSetCount() > 1; i++) {
+			int edge = order[i];
+			inForest[edge] = sets.union(graph.edgeStart[edge], graph.edgeEnd[edge]);
+		}
+
+		setDepths(sets);
+	}
+
+	/**
+	 * runs Boruvka's algorithm, where every round each tree picks its shortest edge
+	 * to another tree in parallel, and the picked edges are then merged.
+	 */
+	public void boruvka(ForkJoinPool pool) {
+		int nodeCount = graph.nodeCount;
+		int edgeCount = graph.edgeCount;
+		UnionFind sets = new UnionFind(nodeCount);
+
+		// the tree each node is in, named by the root of the tree
+		int[] treeOf = new int[nodeCount];
+		// the root of the tree each root is merged into this round
+		int[] mergedInto = new int[nodeCount];
+		// the roots of all the trees that still have edges to other trees
+		int[] roots = new int[nodeCount];
+		int rootCount = nodeCount;
+		AtomicIntegerArray shortest = new AtomicIntegerArray(nodeCount);
+
+		for (int i = 0; i < nodeCount; i++) {
+			treeOf[i] = i;
+			roots[i] = i;
+			shortest.set(i, -1);
+		}
+
+		while (rootCount > 1) {
+			// each tree finds its shortest edge to another tree
+			pool.invoke(new RangeTask(0, edgeCount, (from, to) -> {
+				for (int e = from; e < to; e++) {
+					int startTree = treeOf[graph.edgeStart[e]];
+					int endTree = treeOf[graph.edgeEnd[e]];
+
+					if (startTree != endTree) {
+						offerEdge(shortest, startTree, e);
+						offerEdge(shortest, endTree, e);
+					}
+				}
+			}));
+
+			// add the picked edges to the forest, two trees can pick the same edge
+			boolean merged = false;
+			for (int i = 0; i < rootCount; i++) {
+				int edge = shortest.get(roots[i]);
+
+				if (edge >= 0 && sets.union(graph.edgeStart[edge], graph.edgeEnd[edge])) {
+					inForest[edge] = true;
+					merged = true;
+				}
+			}
+
+			if (!merged) {
+				break;
+			}
+
+			// find the new root of every old tree, and keep the new roots
+			int newRootCount = 0;
+			for (int i = 0; i < rootCount; i++) {
+				int root = roots[i];
+				mergedInto[root] = sets.find(root);
+				shortest.set(root, -1);
+
+				if (mergedInto[root] == root) {
+					roots[newRootCount++] = root;
+				}
+			}
+			rootCount = newRootCount;
+
+			// move every node to its new tree
+			pool.invoke(new RangeTask(0, nodeCount, (from, to) -> {
+				for (int i = from; i < to; i++) {
+					treeOf[i] = mergedInto[treeOf[i]];
+				}
+			}));
+		}
+
+		setDepths(replayUnions());
+	}
+
+	/**
+	 * sets a tree's shortest edge to the given edge, if it's shorter than the one
+	 * the tree already has.
+	 */
+	private void offerEdge(AtomicIntegerArray shortest, int tree, int edge) {
+		while (true) {
+			int current = shortest.get(tree);
+
+			if (current >= 0 && !isShorter(edge, current)) {
+				return;
+			}
+
+			if (shortest.compareAndSet(tree, current, edge)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * compares two edges by length, and by index if their lengths are the same.
+	 */
+	private boolean isShorter(int edge, int other) {
+		double length = graph.edgeLength[edge];
+		double otherLength = graph.edgeLength[other];
+		return length < otherLength || (length == otherLength && edge < other);
+	}
+
+	/**
+	 * merges the forest's edges in the order Kruskal's algorithm would have added
+	 * them. The depth of the trees only depends on that order, so the depths match
+	 * the ones kruskal() finds.
+	 */
+	private UnionFind replayUnions() {
+		int size = 0;
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (inForest[e]) {
+				size++;
+			}
+		}
+
+		int[] edges = new int[size];
+		double[] lengths = new double[size];
+		size = 0;
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (inForest[e]) {
+				edges[size] = e;
+				lengths[size++] = graph.edgeLength[e];
+			}
+		}
+
+		UnionFind sets = new UnionFind(graph.nodeCount);
+		for (int i : sortEdges(lengths)) {
+			sets.union(graph.edgeStart[edges[i]], graph.edgeEnd[edges[i]]);
+		}
+
+		return sets;
+	}
+
+	/**
+	 * records the depth of each tree, in the order of their roots.
+	 */
+	private void setDepths(UnionFind sets) {
+		depths.clear();
+
+		for (int i = 0; i < graph.nodeCount; i++) {
+			if (sets.find(i) == i) {
+				depths.add(sets.getRank(i));
+			}
+		}
+	}
+
+	/**
+	 * returns the indices of the edges sorted by length, with ties kept in index
+	 * order. The lengths are never negative, so their raw bits sort the same way
+	 * as their values, which lets them be radix sorted as longs.
+	 */
+	static int[] sortEdges(double[] lengths) {
+		int size = lengths.length;
+		long[] keys = new long[size];
+		int[] order = new int[size];
+
+		for (int i = 0; i < size; i++) {
+			keys[i] = Double.doubleToLongBits(lengths[i]);
+			order[i] = i;
+		}
+
+		long[] keyBuffer = new long[size];
+		int[] orderBuffer = new int[size];
+		int[] counts = new int[257];
+
+		// sort by one byte at a time, starting with the lowest one
+		for (int shift = 0; shift < 64; shift += 8) {
+			Arrays.fill(counts, 0);
+			for (int i = 0; i < size; i++) {
+				counts[(int) ((keys[i] >>> shift) & 0xff) + 1]++;
+			}
+
+			// skip the byte if every key has the same value for it
+			if (size == 0 || counts[(int) ((keys[0] >>> shift) & 0xff) + 1] == size) {
+				continue;
+			}
+
+			for (int b = 0; b < 256; b++) {
+				counts[b + 1] += counts[b];
+			}
+
+			for (int i = 0; i < size; i++) {
+				int position = counts[(int) ((keys[i] >>> shift) & 0xff)]++;
+				keyBuffer[position] = keys[i];
+				orderBuffer[position] = order[i];
+			}
+
+			long[] tempKeys = keys;
+			keys = keyBuffer;
+			keyBuffer = tempKeys;
+			int[] tempOrder = order;
+			order = orderBuffer;
+			orderBuffer = tempOrder;
+		}
+
+		return order;
+	}
+
+	/**
+	 * the body of a parallel loop over a range of indices.
+	 */
+	private interface RangeBody {
+		void run(int from, int to);
+	}
+
+	/**
+	 * runs a loop body over a range of indices, splitting the range in half while
+	 * it's larger than the threshold.
+	 */
+	@SuppressWarnings("serial")
+	private static class RangeTask extends RecursiveAction {
+		private final int from, to;
+		private final RangeBody body;
+
+		RangeTask(int from, int to, RangeBody body) {
+			this.from = from;
+			this.to = to;
+			this.body = body;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= THRESHOLD) {
+				body.run(from, to);
+				return;
+			}
+
+			int middle = (from + to) >>> 1;
+			invokeAll(new RangeTask(from, middle, body), new RangeTask(middle, to, body));
+		}
+	}
+
+	/**
+	 * getters
+	 */
+
+	boolean isInForest(int edge) {
+		return inForest[edge];
+	}
+
+	public ArrayList<Segment> getSegments() {
+		ArrayList<Segment> segments = new ArrayList<>();
+
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (inForest[e]) {
+				segments.add(graph.getSegment(e));
+			}
+		}
+
+		return segments;
+	}
+
+	public double getLength() {
+		double length = 0;
+
+		for (int e = 0; e < graph.edgeCount; e++) {
+			if (inForest[e]) {
+				length += graph.edgeLength[e];
+			}
+		}
+
+		return length;
+	}
+
+	public ArrayList<Integer> getDepths() {
+		return depths;
+	}
+}
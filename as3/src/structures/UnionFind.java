@@ -0,0 +1,74 @@
+package structures;
+
+/**
+ * disjoint sets of int indices, with path halving, and union by rank.
+ */
+public class UnionFind {
+	private final int[] parent;
+	// an upper bound on the depth of each root's tree
+	private final int[] rank;
+	// the number of disjoint sets
+	private int sets;
+
+	public UnionFind(int size) {
+		parent = new int[size];
+		rank = new int[size];
+		sets = size;
+
+		for (int i = 0; i < size; i++) {
+			parent[i] = i;
+		}
+	}
+
+	/**
+	 * returns the root of a given index, pointing every node on the way to its
+	 * grand parent.
+	 */
+	public int find(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+
+		return x;
+	}
+
+	/**
+	 * merges the sets of two indices by adding the shallower tree to the deeper
+	 * one.
+	 *
+	 * @return false if the indices were already in the same set
+	 */
+	public boolean union(int x, int y) {
+		int xRoot = find(x);
+		int yRoot = find(y);
+
+		if (xRoot == yRoot) {
+			return false;
+		}
+
+		if (rank[xRoot] < rank[yRoot]) {
+			parent[xRoot] = yRoot;
+		} else {
+			parent[yRoot] = xRoot;
+			if (rank[xRoot] == rank[yRoot]) {
+				rank[xRoot]++;
+			}
+		}
+
+		sets--;
+		return true;
+	}
+
+	/**
+	 * getters
+	 */
+
+	public int getRank(int root) {
+		return rank[root];
+	}
+
+	public int getSetCount() {
+		return sets;
+	}
+}
@@ -11,9 +11,13 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
-import structures.ArticulationPoint;
-import structures.MinimumSpanningTree;
+import structures.BiconnectedComponents;
+import structures.BlockCutTree;
+import structures.DynamicSpanningForest;
+import structures.IndexedGraph;
+import structures.SpanningForest;
 
 /**
  * This represents the data structure storing all the roads, nodes, and
@@ -30,9 +34,13 @@ public class Graph {
 	// just some collection of Segments.
 	public Collection<Segment> segments;
 
-	private final ArticulationPoint AP;
+	private BiconnectedComponents AP;
 	private ArrayList<Node> APs = new ArrayList<>();
-	private final MinimumSpanningTree tree;
+	// keeps the articulation points up to date as segments are closed
+	private BlockCutTree closures;
+	private SpanningForest tree;
+	// keeps the spanning tree up to date as segments are added
+	private DynamicSpanningForest dynamicTree;
 	private ArrayList<Segment> highlightedSegments = new ArrayList<>();
 
 	Node highlightedNode;
@@ -42,8 +50,6 @@ public class Graph {
 		this.nodes = Parser.parseNodes(nodes, this);
 		this.roads = Parser.parseRoads(roads, this);
 		this.segments = Parser.parseSegments(segments, this);
-		AP = new ArticulationPoint();
-		tree = new MinimumSpanningTree();
 	}
 
 	public void draw(Graphics g, Dimension screen, Location origin, double scale) {
@@ -103,14 +109,81 @@ public class Graph {
 		this.highlightedRoads = roads;
 	}
 
+	/**
+	 * finds the articulation points one part at a time, which is faster than the
+	 * parallel search on the data sets the mapper loads.
+	 */
 	public void highlightAPs() {
-		reset();
-		APs = AP.getPoints(new ArrayList<>(nodes.values()));
+		highlightAPs(false);
 	}
 
-	private void reset() {
-		AP.reset();
-		APs.clear();
+	/**
+	 * finds the articulation points, either one part of the graph at a time, or
+	 * with all the parts searched in parallel.
+	 */
+	public void highlightAPs(boolean parallel) {
+		AP = new BiconnectedComponents(new IndexedGraph(nodes.values(), segments));
+
+		if (parallel) {
+			AP.searchParallel(ForkJoinPool.commonPool());
+		} else {
+			AP.search();
+		}
+
+		APs = AP.getPoints();
+		closures = null;
+	}
+
+	/**
+	 * closes a segment, removing it from the graph, and updates the articulation
+	 * points without searching the whole graph again.
+	 */
+	public void closeSegment(Segment segment) {
+		getClosures().closeSegment(segment);
+		segments.remove(segment);
+		segment.start.segments.remove(segment);
+		segment.end.segments.remove(segment);
+		// the dynamic spanning tree can only add segments, and the last full tree was
+		// found before the segments it added, so it's out of date too
+		if (dynamicTree != null) {
+			dynamicTree = null;
+			tree = null;
+		}
+
+		// the tree only changes if the closed segment was part of it
+		if (highlightedSegments.contains(segment)) {
+			highlightMinimumSpanningTree();
+		}
+
+		// only update the highlighted points if they're being shown
+		if (!APs.isEmpty()) {
+			APs = closures.getPoints();
+		}
+	}
+
+	/**
+	 * builds the block structure of the current graph the first time it's needed.
+	 */
+	private BlockCutTree getClosures() {
+		if (closures == null) {
+			closures = new BlockCutTree(new IndexedGraph(nodes.values(), segments));
+		}
+
+		return closures;
+	}
+
+	/**
+	 * checks if a node is still an articulation point after the closures so far.
+	 */
+	public boolean isArticulationPoint(Node node) {
+		return getClosures().isArticulationPoint(node);
+	}
+
+	/**
+	 * checks if closing a segment would split the part of the network it's in.
+	 */
+	public boolean isBridge(Segment segment) {
+		return getClosures().isBridge(segment);
 	}
 
 	public ArrayList<Node> getAPs() {
@@ -118,7 +191,51 @@ public class Graph {
 	}
 
 	public void highlightMinimumSpanningTree() {
-		highlightedSegments = tree.kruskalAlgorithm(this);
+		highlightMinimumSpanningTree(true);
+	}
+
+	/**
+	 * finds the minimum spanning forest, either with Kruskal's algorithm, or with
+	 * Boruvka's algorithm in parallel.
+	 */
+	public void highlightMinimumSpanningTree(boolean parallel) {
+		tree = new SpanningForest(new IndexedGraph(nodes.values(), segments));
+
+		if (parallel) {
+			tree.boruvka(ForkJoinPool.commonPool());
+		} else {
+			tree.kruskal();
+		}
+
+		highlightedSegments = tree.getSegments();
+		dynamicTree = null;
+	}
+
+	/**
+	 * reads new segments from a file, and adds them to the graph.
+	 */
+	public void addSegments(File segmentsFile) {
+		addSegments(Parser.parseSegments(segmentsFile, this));
+	}
+
+	/**
+	 * adds new segments to the graph, and updates the minimum spanning tree
+	 * without recomputing it.
+	 */
+	public void addSegments(Collection<Segment> newSegments) {
+		if (dynamicTree == null) {
+			dynamicTree = new DynamicSpanningForest(new IndexedGraph(nodes.values(), segments));
+		}
+
+		segments.addAll(newSegments);
+		dynamicTree.addSegments(newSegments);
+		// the block structure can only close segments
+		closures = null;
+
+		// only update the highlighted segments if the tree is being shown
+		if (!highlightedSegments.isEmpty()) {
+			highlightedSegments = dynamicTree.getSegments();
+		}
 	}
 
 	public ArrayList<Segment> getMinimumSpanningTree() {
@@ -126,12 +243,68 @@ public class Graph {
 	}
 
 	public ArrayList<Integer> getMSTDepths() {
-		return tree.getDepths();
+		if (dynamicTree != null) {
+			return dynamicTree.getDepths();
+		}
+
+		return getTree().getDepths();
+	}
+
+	public int getMSTTreeCount() {
+		if (dynamicTree != null) {
+			return dynamicTree.getTreeCount();
+		}
+
+		return getTree().getDepths().size();
+	}
+
+	/**
+	 * returns the last full spanning tree, finding it from the current segments if
+	 * there isn't one, or it's out of date.
+	 */
+	private SpanningForest getTree() {
+		if (tree == null) {
+			tree = new SpanningForest(new IndexedGraph(nodes.values(), segments));
+			tree.kruskal();
+		}
+
+		return tree;
 	}
 	
+	/**
+	 * the results of the last articulation point search, or of the block
+	 * structure if it's been built since, which keeps them up to date as segments
+	 * close. They're empty before either.
+	 */
 	public ArrayList<Integer> getAPSizes() {
+		if (closures != null) {
+			return closures.getGraphSizes();
+		} else if (AP == null) {
+			return new ArrayList<>();
+		}
+
 		return AP.getGraphSizes();
 	}
+
+	public ArrayList<Segment> getBridges() {
+		if (closures != null) {
+			return closures.getBridges();
+		} else if (AP == null) {
+			return new ArrayList<>();
+		}
+
+		return AP.getBridges();
+	}
+
+	public int getBiconnectedComponentCount() {
+		if (closures != null) {
+			return closures.getBlockCount();
+		} else if (AP == null) {
+			return 0;
+		}
+
+		return AP.getBlockCount();
+	}
 }
 
 // code for COMP261 assignments
\ No newline at end of file
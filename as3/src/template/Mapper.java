@@ -144,7 +144,9 @@ public class Mapper extends GUI {
 			text += "Graph #" + (i + 1) + ": " + graphSizes.get(i) + "\n";
 		}
 
-		text += "number of articulation points: " + APs.size();
+		text += "number of articulation points: " + APs.size() + "\n";
+		text += "number of bridges: " + graph.getBridges().size() + "\n";
+		text += "number of biconnected components: " + graph.getBiconnectedComponentCount();
 		getTextOutputArea().setText(text);
 	}
 
@@ -152,7 +154,6 @@ public class Mapper extends GUI {
 	protected void findMinimumSpanningTree() {
 		graph.highlightMinimumSpanningTree();
 		ArrayList<Segment> segments = graph.getMinimumSpanningTree();
-		ArrayList<Integer> depths = graph.getMSTDepths();
 
 		double length = 0;
 
@@ -160,7 +161,7 @@ public class Mapper extends GUI {
 			length += segment.length;
 		}
 
-		String s = "number of graphs: " + depths.size() + "\n";
+		String s = "number of graphs: " + graph.getMSTTreeCount() + "\n";
 		s += "number of segments: " + segments.size() + "\ntotal length: " + length;
 		getTextOutputArea().setText(s);
 	}
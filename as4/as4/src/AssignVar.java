@@ -0,0 +1,42 @@
+class AssignVar implements RobotProgramNode {
+    String name;
+    int slot;
+    EXP exp;
+    SEN sen;
+
+    public AssignVar(String name, int slot, EXP exp) {
+        this.name = name;
+        this.slot = slot;
+        this.exp = exp;
+    }
+
+    public AssignVar(String name, int slot, SEN sen) {
+        this.name = name;
+        this.slot = slot;
+        this.sen = sen;
+    }
+
+    @Override
+    public void execute(Robot robot) {
+        int n = 0;
+        if (exp != null) {
+            n = exp.getEXP(robot);
+        } else if (sen != null) {
+            sen.getSEN(robot);
+        }
+        robot.setVariable(slot, n);
+    }
+
+    @Override
+    public String toString() {
+        String s = "" + name + " = ";
+
+        if (exp != null) {
+            s += exp;
+        } else if (sen != null) {
+            s += sen;
+        }
+
+        return s;
+    }
+}
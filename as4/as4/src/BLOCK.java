@@ -0,0 +1,31 @@
+import java.util.*;
+
+class BLOCK implements RobotProgramNode {
+    ArrayList<STMT> stmts;
+
+    public BLOCK(ArrayList<STMT> stmts) {
+        this.stmts = stmts;
+    }
+
+    @Override
+    public void execute(Robot robot) {
+        for (STMT stmt : stmts) {
+            if (robot.isDead()) {
+                break;
+            }
+
+            stmt.execute(robot);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("{\n");
+
+        for (STMT stmt : stmts) {
+            s.append(stmt.toString()).append("\n");
+        }
+
+        return s.toString() + "}";
+    }
+}
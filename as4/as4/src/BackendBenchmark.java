@@ -0,0 +1,107 @@
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Compares the running time of the same robot programs when they are run by
+ * walking the parsed tree, by the RobotBytecode interpreter, and as a class
+ * generated by RobotClassCompiler. The first two programs only compute, so they
+ * time the interpreters themselves, while the last one mostly times the robot's
+ * actions. The robots run without waiting for the world, like in
+ * RoboGamePrinter, and everything they print is thrown away.
+ */
+public class BackendBenchmark {
+
+    // the number of untimed runs, and timed runs of each backend
+    private static final int WARM_UP = 5;
+    private static final int RUNS = 10;
+
+    private static final String ARITHMETIC =
+            "$i = 0; $sum = 0;\n"
+                    + "while (lt($i, 300000)) {\n"
+                    + "    $sum = add($sum, mul(sub($i, wallDist), 3));\n"
+                    + "    if (gt($sum, 1000000)) { $sum = div($sum, 7); } else { $sum = add($sum, 1); }\n"
+                    + "    $i = add($i, 1);\n"
+                    + "}\n";
+
+    private static final String SENSORS =
+            "$i = 0; $seen = 0;\n"
+                    + "while (lt($i, 100000)) {\n"
+                    + "    if (and(gt(fuelLeft, 0), not(eq(numBarrels, 0)))) { $seen = add($seen, barrelLR(1)); }\n"
+                    + "    elif (or(lt(oppLR, 0), gt(barrelFB, wallDist))) { $seen = sub($seen, 1); }\n"
+                    + "    $i = add($i, 1);\n"
+                    + "}\n";
+
+    private static final String ACTIONS =
+            "while (gt(fuelLeft, 0)) {\n"
+                    + "    if (eq(numBarrels, 0)) { wait; }\n"
+                    + "    elif (and(eq(barrelLR, 0), eq(barrelFB, 0))) { takeFuel; }\n"
+                    + "    elif (eq(barrelFB, 0)) { if (lt(barrelLR, 0)) { turnL; } else { turnR; } }\n"
+                    + "    elif (gt(barrelFB, 0)) { move(barrelFB); }\n"
+                    + "    else { turnAround; }\n"
+                    + "}\n";
+
+    public static void main(String[] args) throws IOException {
+        RoboGame.debugDisplay = false;
+        PrintStream out = System.out;
+        PrintStream discard = new PrintStream(OutputStream.nullOutputStream());
+
+        String[] names = { "arithmetic", "sensors", "actions" };
+        String[] sources = { ARITHMETIC, SENSORS, ACTIONS };
+
+        for (int p = 0; p < sources.length; p++) {
+            System.setOut(discard);
+            RobotProgramNode tree = parse(sources[p]);
+            RobotProgramNode bytecode = BytecodeCompiler.compile(tree);
+            RobotProgramNode generated = RobotClassCompiler.compile(tree);
+
+            long treeTime = time(tree);
+            long bytecodeTime = time(bytecode);
+            long generatedTime = time(generated);
+            System.setOut(out);
+
+            System.out.println(names[p] + ":");
+            System.out.printf("  tree walk:       %8.3f ms%n", treeTime / 1e6);
+            System.out.printf("  bytecode:        %8.3f ms, %.1fx%n", bytecodeTime / 1e6, (double) treeTime / bytecodeTime);
+            System.out.printf("  generated class: %8.3f ms, %.1fx%n", generatedTime / 1e6, (double) treeTime / generatedTime);
+        }
+    }
+
+    /**
+     * Returns the fastest of the timed runs, each on a new world with the same
+     * fuel barrels.
+     */
+    private static long time(RobotProgramNode program) {
+        long best = Long.MAX_VALUE;
+
+        for (int i = 0; i < WARM_UP + RUNS; i++) {
+            World.RoboGamePrinter world = new World.RoboGamePrinter();
+            for (int b = 0; b < 6; b++) {
+                world.availableFuel.add(new Point((b * 5) % World.SIZE, (b * 7 + 3) % World.SIZE));
+            }
+            Robot robot = world.getRobot(1);
+            robot.setProgram(program);
+
+            long start = System.nanoTime();
+            robot.run();
+            long time = System.nanoTime() - start;
+
+            if (i >= WARM_UP) {
+                best = Math.min(best, time);
+            }
+        }
+
+        return best;
+    }
+
+    private static RobotProgramNode parse(String source) throws IOException {
+        File file = File.createTempFile("robot", ".prog");
+        file.deleteOnExit();
+        Files.write(file.toPath(), source.getBytes(StandardCharsets.UTF_8));
+        return Parser.parseFile(file);
+    }
+}
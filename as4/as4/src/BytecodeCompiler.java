@@ -0,0 +1,353 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Compiles a parsed program into RobotBytecode. Every node is translated into
+ * the instructions that make the same calls on the robot, in the same order, as
+ * its execute method, including the isDead checks between statements and the
+ * else block checking the if condition again.
+ */
+class BytecodeCompiler {
+
+    private int[] code = new int[64];
+    private int size = 0;
+    // the current, and deepest stack depth
+    private int depth = 0;
+    private int maxDepth = 0;
+
+    private BytecodeCompiler() {
+    }
+
+    /**
+     * Compiles a whole program, as returned by the parser.
+     */
+    static RobotBytecode compile(RobotProgramNode program) {
+        if (!(program instanceof RobotInstructions)) {
+            throw new IllegalArgumentException("only whole programs can be compiled");
+        }
+
+        BytecodeCompiler compiler = new BytecodeCompiler();
+        compiler.compileNode(program);
+        compiler.emit(RobotBytecode.HALT);
+
+        return new RobotBytecode(Arrays.copyOf(compiler.code, compiler.size),
+                ((RobotInstructions) program).variables, compiler.maxDepth);
+    }
+
+    // statements
+
+    private void compileNode(RobotProgramNode node) {
+        if (node instanceof RobotInstructions) {
+            for (RobotProgramNode instruction : ((RobotInstructions) node).instructions) {
+                compileNode(instruction);
+            }
+        } else if (node instanceof STMT) {
+            compileNode(((STMT) node).child);
+        } else if (node instanceof BLOCK) {
+            compileBlock((BLOCK) node);
+        } else if (node instanceof ACT) {
+            compileACT((ACT) node);
+        } else if (node instanceof Loop) {
+            compileLoop((Loop) node);
+        } else if (node instanceof WhileLoop) {
+            compileWhile((WhileLoop) node);
+        } else if (node instanceof IfStatement) {
+            compileIf((IfStatement) node);
+        } else if (node instanceof AssignVar) {
+            compileAssign((AssignVar) node);
+        } else {
+            throw new IllegalArgumentException("can't compile " + node.getClass().getName());
+        }
+    }
+
+    private void compileBlock(BLOCK block) {
+        ArrayList<Integer> exits = new ArrayList<>();
+
+        for (STMT stmt : block.stmts) {
+            exits.add(emitJump(RobotBytecode.JUMP_IF_DEAD));
+            compileNode(stmt);
+        }
+
+        for (int exit : exits) {
+            patch(exit);
+        }
+    }
+
+    private void compileACT(ACT act) {
+        switch (act.act) {
+            case move:
+                compileCount(act);
+                emit(RobotBytecode.MOVE);
+                pop();
+                break;
+            case wait:
+                compileCount(act);
+                emit(RobotBytecode.WAIT);
+                pop();
+                break;
+            case turnL:
+                emit(RobotBytecode.TURN_LEFT);
+                break;
+            case turnR:
+                emit(RobotBytecode.TURN_RIGHT);
+                break;
+            case turnAround:
+                emit(RobotBytecode.TURN_AROUND);
+                break;
+            case takeFuel:
+                emit(RobotBytecode.TAKE_FUEL);
+                break;
+            case shieldOn:
+                emit(RobotBytecode.SHIELD_ON);
+                break;
+            case shieldOff:
+                emit(RobotBytecode.SHIELD_OFF);
+                break;
+        }
+    }
+
+    /**
+     * Pushes the number of times a move or wait is repeated.
+     */
+    private void compileCount(ACT act) {
+        if (act.exp != null) {
+            compileEXP(act.exp);
+        } else {
+            emit(RobotBytecode.PUSH, act.nRuns);
+            push();
+        }
+    }
+
+    private void compileLoop(Loop loop) {
+        int start = size;
+        int exit = emitJump(RobotBytecode.JUMP_IF_DEAD);
+        compileBlock(loop.block);
+        emit(RobotBytecode.JUMP, start);
+        patch(exit);
+    }
+
+    private void compileWhile(WhileLoop loop) {
+        int start = size;
+        int dead = emitJump(RobotBytecode.JUMP_IF_DEAD);
+        compileCondition(loop.condition);
+        int exit = emitJump(RobotBytecode.JUMP_IF_FALSE);
+        pop();
+        compileBlock(loop.block);
+        emit(RobotBytecode.JUMP, start);
+        patch(dead);
+        patch(exit);
+    }
+
+    private void compileIf(IfStatement statement) {
+        ArrayList<Integer> exits = new ArrayList<>();
+        exits.add(emitJump(RobotBytecode.JUMP_IF_DEAD));
+
+        compileCondition(statement.condition);
+        int notTaken = emitJump(RobotBytecode.JUMP_IF_FALSE);
+        pop();
+        compileBlock(statement.block);
+        // the else block still runs if the condition has become false
+        int toElse = emitJump(RobotBytecode.JUMP);
+
+        // an elif whose condition is true is executed as an if statement of its own,
+        // so its condition is checked again, and the else block is skipped
+        patch(notTaken);
+        for (IfStatement elseIf : statement.elseIfs) {
+            compileCondition(elseIf.condition);
+            int next = emitJump(RobotBytecode.JUMP_IF_FALSE);
+            pop();
+            exits.add(emitJump(RobotBytecode.JUMP_IF_DEAD));
+            compileCondition(elseIf.condition);
+            exits.add(emitJump(RobotBytecode.JUMP_IF_FALSE));
+            pop();
+            compileBlock(elseIf.block);
+            exits.add(emitJump(RobotBytecode.JUMP));
+            patch(next);
+        }
+
+        patch(toElse);
+        if (statement.elseStatement != null) {
+            exits.add(emitJump(RobotBytecode.JUMP_IF_DEAD));
+            compileCondition(statement.condition);
+            exits.add(emitJump(RobotBytecode.JUMP_IF_TRUE));
+            pop();
+            compileBlock(statement.elseStatement.block);
+        }
+
+        for (int exit : exits) {
+            patch(exit);
+        }
+    }
+
+    private void compileAssign(AssignVar assign) {
+        if (assign.exp != null) {
+            compileEXP(assign.exp);
+        } else {
+            // a sensor on its own is assigned 0
+            emit(RobotBytecode.PUSH, 0);
+            push();
+        }
+
+        emit(RobotBytecode.STORE, assign.slot);
+        pop();
+    }
+
+    // expressions, each leaves one value on the stack
+
+    private void compileCondition(Condition condition) {
+        if (condition.firstCondition != null && condition.secondCondition != null) {
+            compileCondition(condition.firstCondition);
+            boolean and = condition.operator == Condition.OPERATOR.and;
+            int shortCircuit = emitJump(and ? RobotBytecode.JUMP_IF_FALSE : RobotBytecode.JUMP_IF_TRUE);
+            pop();
+            compileCondition(condition.secondCondition);
+            int end = emitJump(RobotBytecode.JUMP);
+            patch(shortCircuit);
+            emit(RobotBytecode.PUSH, and ? 0 : 1);
+            patch(end);
+        } else if (condition.relop != null && condition.sen != null && condition.exp != null) {
+            compileSEN(condition.sen);
+            compileEXP(condition.exp);
+            compileRelop(condition.relop);
+        } else if (condition.relop != null && condition.sen != null && condition.sen2 != null) {
+            compileSEN(condition.sen);
+            compileSEN(condition.sen2);
+            compileRelop(condition.relop);
+        } else if (condition.relop != null && condition.exp != null && condition.exp2 != null) {
+            compileEXP(condition.exp);
+            compileEXP(condition.exp2);
+            compileRelop(condition.relop);
+        } else if (condition.firstCondition != null) {
+            compileCondition(condition.firstCondition);
+            if (condition.operator == Condition.OPERATOR.not) {
+                emit(RobotBytecode.NOT);
+            }
+        } else {
+            emit(RobotBytecode.PUSH, 0);
+            push();
+        }
+    }
+
+    private void compileRelop(RELOP relop) {
+        switch (relop.getRelop()) {
+            case gt:
+                emit(RobotBytecode.GT);
+                break;
+            case lt:
+                emit(RobotBytecode.LT);
+                break;
+            case eq:
+                emit(RobotBytecode.EQ);
+                break;
+        }
+        pop();
+    }
+
+    private void compileEXP(EXP exp) {
+        if (exp.sen != null) {
+            compileSEN(exp.sen);
+        } else if (exp.var != null) {
+            compileAssign(exp.var);
+            emit(RobotBytecode.LOAD, exp.var.slot);
+            push();
+        } else if (exp.varName != null) {
+            emit(RobotBytecode.LOAD, exp.slot);
+            push();
+        } else if (exp.op != null) {
+            compileEXP(exp.op.exp1);
+            compileEXP(exp.op.exp2);
+            switch (exp.op.operation) {
+                case add:
+                    emit(RobotBytecode.ADD);
+                    break;
+                case sub:
+                    emit(RobotBytecode.SUB);
+                    break;
+                case mul:
+                    emit(RobotBytecode.MUL);
+                    break;
+                case div:
+                    emit(RobotBytecode.DIV);
+                    break;
+            }
+            pop();
+        } else {
+            // a number that was never set is 0
+            emit(RobotBytecode.PUSH, exp.num < Integer.MAX_VALUE ? exp.num : 0);
+            push();
+        }
+    }
+
+    private void compileSEN(SEN sen) {
+        switch (sen.sen) {
+            case FUEL_LEFT:
+                emit(RobotBytecode.FUEL_LEFT);
+                break;
+            case OPP_LR:
+                emit(RobotBytecode.OPP_LR);
+                break;
+            case OPP_FB:
+                emit(RobotBytecode.OPP_FB);
+                break;
+            case NUM_BARRELS:
+                emit(RobotBytecode.NUM_BARRELS);
+                break;
+            case BARREL_LR:
+                emit(RobotBytecode.BARREL_LR);
+                break;
+            case BARREL_FB:
+                emit(RobotBytecode.BARREL_FB);
+                break;
+            case N_BARREL_LR:
+                compileEXP(sen.n);
+                emit(RobotBytecode.NTH_BARREL_LR);
+                return;
+            case N_BARREL_FB:
+                compileEXP(sen.n);
+                emit(RobotBytecode.NTH_BARREL_FB);
+                return;
+            case WALL_DIST:
+                emit(RobotBytecode.WALL_DIST);
+                break;
+        }
+        push();
+    }
+
+    // utility methods for emitting code
+
+    private void emit(int opcode) {
+        if (size == code.length) {
+            code = Arrays.copyOf(code, size * 2);
+        }
+        code[size++] = opcode;
+    }
+
+    private void emit(int opcode, int operand) {
+        emit(opcode);
+        emit(operand);
+    }
+
+    /**
+     * Emits a jump whose target isn't known yet, and returns where its target goes.
+     */
+    private int emitJump(int opcode) {
+        emit(opcode, -1);
+        return size - 1;
+    }
+
+    /**
+     * Points a jump emitted by emitJump at the next instruction.
+     */
+    private void patch(int target) {
+        code[target] = size;
+    }
+
+    private void push() {
+        depth++;
+        maxDepth = Math.max(maxDepth, depth);
+    }
+
+    private void pop() {
+        depth--;
+    }
+}
@@ -0,0 +1,156 @@
+class Condition {
+    public enum OPERATOR {
+        and,
+        or,
+        not,
+        is
+    }
+
+    Condition firstCondition;
+    Condition secondCondition;
+    OPERATOR operator;
+    RELOP relop;
+    SEN sen;
+    SEN sen2;
+    EXP exp;
+    EXP exp2;
+
+    public Condition(Condition firstCondition, Condition secondCondition, OPERATOR operator) {
+        this.firstCondition = firstCondition;
+        this.secondCondition = secondCondition;
+        this.operator = operator;
+    }
+
+    public Condition(OPERATOR operator, Condition condition) {
+        this.operator = operator;
+        this.firstCondition = condition;
+    }
+
+    public Condition(RELOP relop, SEN sen, SEN sen2) {
+        this.relop = relop;
+        this.sen = sen;
+        this.sen2 = sen2;
+    }
+
+    Condition(RELOP relop, EXP exp, EXP exp2) {
+        this.relop = relop;
+        this.exp = exp;
+        this.exp2 = exp2;
+    }
+
+    public Condition(RELOP relop, SEN sen, EXP exp) {
+        this.relop = relop;
+        this.sen = sen;
+        this.exp = exp;
+    }
+
+    public boolean isTrue(Robot robot) {
+        if (firstCondition != null && secondCondition != null) {
+            switch (operator) {
+                case and:
+                    return firstCondition.isTrue(robot) && secondCondition.isTrue(robot);
+                case or:
+                    return firstCondition.isTrue(robot) || secondCondition.isTrue(robot);
+            }
+        } else if (relop != null && sen != null && exp != null) {
+            switch (relop.getRelop()) {
+                case eq:
+                    return sen.getSEN(robot) == exp.getEXP(robot);
+                case gt:
+                    return sen.getSEN(robot) > exp.getEXP(robot);
+                case lt:
+                    return sen.getSEN(robot) < exp.getEXP(robot);
+            }
+        } else if (relop != null && sen != null && sen2 != null) {
+            switch (relop.getRelop()) {
+                case eq:
+                    return sen.getSEN(robot) == sen2.getSEN(robot);
+                case gt:
+                    return sen.getSEN(robot) > sen2.getSEN(robot);
+                case lt:
+                    return sen.getSEN(robot) < sen2.getSEN(robot);
+            }
+        } else if (relop != null && exp != null && exp2 != null) {
+            switch (relop.getRelop()) {
+                case eq:
+                    return exp.getEXP(robot) == exp2.getEXP(robot);
+                case gt:
+                    return exp.getEXP(robot) > exp2.getEXP(robot);
+                case lt:
+                    return exp.getEXP(robot) < exp2.getEXP(robot);
+            }
+        } else if (firstCondition != null) {
+            switch (operator) {
+                case is:
+                    return firstCondition.isTrue(robot);
+                case not:
+                    return !firstCondition.isTrue(robot);
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        String s = "(";
+
+        if (firstCondition != null && secondCondition != null) {
+            switch (operator) {
+                case and:
+                    s += "and(" + firstCondition + ", " + secondCondition + ")";
+                    break;
+                case or:
+                    s += "or(" + firstCondition + ", " + secondCondition + ")";
+                    break;
+            }
+        } else if (relop != null && sen != null && exp != null) {
+            switch (relop.getRelop()) {
+                case eq:
+                    s += "eq(" + sen + ", " + exp + ")";
+                    break;
+                case gt:
+                    s += "gt(" + sen + ", " + exp + ")";
+                    break;
+                case lt:
+                    s += "lt(" + sen + ", " + exp + ")";
+                    break;
+            }
+        } else if (relop != null && sen != null && sen2 != null) {
+            switch (relop.getRelop()) {
+                case eq:
+                    s += "eq(" + sen + ", " + sen2 + ")";
+                    break;
+                case gt:
+                    s += "gt(" + sen + ", " + sen2 + ")";
+                    break;
+                case lt:
+                    s += "lt(" + sen + ", " + sen2 + ")";
+                    break;
+            }
+        } else if (relop != null && exp != null && exp2 != null) {
+            switch (relop.getRelop()) {
+                case eq:
+                    s += "eq(" + exp + ", " + exp2 + ")";
+                    break;
+                case gt:
+                    s += "gt(" + exp + ", " + exp2 + ")";
+                    break;
+                case lt:
+                    s += "lt(" + exp + ", " + exp2 + ")";
+                    break;
+            }
+        } else if (firstCondition != null) {
+            switch (operator) {
+                case is:
+                    s += firstCondition;
+                    break;
+                case not:
+                    s += "not" + firstCondition;
+                    break;
+            }
+        }
+
+        return s + ")";
+    }
+}
@@ -0,0 +1,21 @@
+class ElseStatement implements RobotProgramNode {
+    IfStatement parent;
+    BLOCK block;
+
+    ElseStatement(IfStatement parent, BLOCK block) {
+        this.parent = parent;
+        this.block = block;
+    }
+
+    @Override
+    public void execute(Robot robot) {
+        if (!robot.isDead() && !parent.condition.isTrue(robot)) {
+            block.execute(robot);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Else" + block.toString();
+    }
+}
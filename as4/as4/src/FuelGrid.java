@@ -0,0 +1,162 @@
+import java.awt.Point;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The fuel barrels in the world, as a set of points backed by one bit per cell
+ * of the grid. Cell y * SIZE + x is bit cell % 64 of word cell / 64. Robots copy
+ * the three words each tick instead of copying and sorting the points, and find
+ * the nth nearest barrel by walking the cells in order of distance. Only points
+ * inside the world can be added, which World.readFuel makes sure of for layouts
+ * read from a file.
+ */
+class FuelGrid extends AbstractSet<Point> {
+
+    static final int CELLS = World.SIZE * World.SIZE;
+
+    // for each cell, every cell in order of Manhattan distance from it, ties in cell order
+    private static final byte[][] BY_DISTANCE = new byte[CELLS][CELLS];
+
+    static {
+        Integer[] cells = new Integer[CELLS];
+        for (int from = 0; from < CELLS; from++) {
+            for (int c = 0; c < CELLS; c++) {
+                cells[c] = c;
+            }
+            final int fromX = x(from), fromY = y(from);
+            Arrays.sort(cells, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer c1, Integer c2) {
+                    int d1 = Math.abs(x(c1) - fromX) + Math.abs(y(c1) - fromY);
+                    int d2 = Math.abs(x(c2) - fromX) + Math.abs(y(c2) - fromY);
+                    return d1 != d2 ? d1 - d2 : c1 - c2;
+                }
+            });
+            for (int i = 0; i < CELLS; i++) {
+                BY_DISTANCE[from][i] = (byte) (int) cells[i];
+            }
+        }
+    }
+
+    private final long[] words = new long[3];
+
+    static int cell(int x, int y) {
+        return y * World.SIZE + x;
+    }
+
+    static int x(int cell) {
+        return cell % World.SIZE;
+    }
+
+    static int y(int cell) {
+        return cell / World.SIZE;
+    }
+
+    /**
+     * Returns the ith cell in order of distance from a cell.
+     */
+    static int byDistance(int from, int i) {
+        return BY_DISTANCE[from][i] & 0xFF;
+    }
+
+    static boolean has(long[] words, int cell) {
+        return (words[cell >> 6] & (1L << cell)) != 0;
+    }
+
+    /**
+     * Copies the barrels into three words.
+     */
+    synchronized void copyTo(long[] words) {
+        System.arraycopy(this.words, 0, words, 0, 3);
+    }
+
+    @Override
+    public synchronized boolean add(Point p) {
+        int cell = checkedCell(p);
+        boolean added = !has(words, cell);
+        words[cell >> 6] |= 1L << cell;
+        return added;
+    }
+
+    @Override
+    public synchronized boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        int cell = checkedCell((Point) o);
+        words[cell >> 6] &= ~(1L << cell);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean contains(Object o) {
+        if (!(o instanceof Point)) {
+            return false;
+        }
+        Point p = (Point) o;
+        return p.x >= 0 && p.x < World.SIZE && p.y >= 0 && p.y < World.SIZE && has(words, cell(p.x, p.y));
+    }
+
+    @Override
+    public synchronized int size() {
+        return Long.bitCount(words[0]) + Long.bitCount(words[1]) + Long.bitCount(words[2]);
+    }
+
+    @Override
+    public synchronized void clear() {
+        words[0] = words[1] = words[2] = 0;
+    }
+
+    /**
+     * Iterates over the barrels there were when it was made, in cell order, so
+     * the GUI can draw them while robots take them.
+     */
+    @Override
+    public Iterator<Point> iterator() {
+        final long[] snapshot = new long[3];
+        copyTo(snapshot);
+
+        return new Iterator<Point>() {
+            private int word = 0;
+            private Point last;
+
+            @Override
+            public boolean hasNext() {
+                while (word < 3 && snapshot[word] == 0) {
+                    word++;
+                }
+                return word < 3;
+            }
+
+            @Override
+            public Point next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int cell = word * 64 + Long.numberOfTrailingZeros(snapshot[word]);
+                snapshot[word] &= snapshot[word] - 1;
+                last = new Point(x(cell), y(cell));
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                FuelGrid.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    private static int checkedCell(Point p) {
+        if (p.x < 0 || p.x >= World.SIZE || p.y < 0 || p.y >= World.SIZE) {
+            throw new IllegalArgumentException("fuel outside the world: " + p);
+        }
+        return cell(p.x, p.y);
+    }
+}
@@ -0,0 +1,88 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Records a game as a compact binary log, which GameReplay can play back. There
+ * is one record for the start of the game and one for every tick after it. Each
+ * record has the state of both robots packed into an int each, followed by the
+ * fuel barrels that appeared and disappeared since the last record, as the
+ * number of them followed by their cells. A tick with no fuel changes takes 10
+ * bytes.
+ */
+class GameLog {
+
+    static final int MAGIC = 0x524C4F47; // "RLOG"
+    static final int VERSION = 1;
+
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private final DataOutputStream out = new DataOutputStream(bytes);
+    // the barrels at the last record, and now, as FuelGrid stores them
+    private final long[] barrels = new long[3];
+    private final long[] current = new long[3];
+    private int records = 0;
+
+    GameLog() {
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        } catch (IOException e) {
+            // can't happen when writing to a ByteArrayOutputStream
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Records the state of the robots, and the barrels that have changed since
+     * the last record.
+     */
+    void record(Robot robot1, Robot robot2, FuelGrid fuel) {
+        fuel.copyTo(current);
+
+        try {
+            out.writeInt(robot1.packState());
+            out.writeInt(robot2.packState());
+            writeCells(current, barrels);
+            writeCells(barrels, current);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+
+        System.arraycopy(current, 0, barrels, 0, 3);
+        records++;
+    }
+
+    /**
+     * Writes the number of cells that are in set but not in except, then the cells.
+     */
+    private void writeCells(long[] set, long[] except) throws IOException {
+        int count = 0;
+        for (int i = 0; i < 3; i++) {
+            count += Long.bitCount(set[i] & ~except[i]);
+        }
+        out.writeByte(count);
+
+        for (int i = 0; i < 3; i++) {
+            for (long bits = set[i] & ~except[i]; bits != 0; bits &= bits - 1) {
+                out.writeByte(i * 64 + Long.numberOfTrailingZeros(bits));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of records, which is one more than the number of ticks.
+     */
+    int size() {
+        return records;
+    }
+
+    byte[] toByteArray() {
+        return bytes.toByteArray();
+    }
+
+    void writeTo(File file) throws IOException {
+        Files.write(file.toPath(), toByteArray());
+    }
+}
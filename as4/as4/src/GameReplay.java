@@ -0,0 +1,191 @@
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plays back a game recorded by a GameLog, without running the programs again.
+ * Loading indexes where each record starts, and keeps a copy of the barrels
+ * every KEYFRAME ticks, so seeking to any tick applies at most KEYFRAME - 1
+ * records of barrel changes.
+ */
+public class GameReplay {
+
+    private static final int KEYFRAME = 64;
+    private static final String[] DIRECTIONS = { "NORTH", "WEST", "SOUTH", "EAST" };
+
+    private final byte[] log;
+    // where each record starts
+    private final int[] offsets;
+    // the barrels at every KEYFRAMEth tick, three words per keyframe
+    private final long[] keyframes;
+
+    private int tick = -1;
+    private final long[] barrels = new long[3];
+
+    public GameReplay(byte[] log) {
+        this.log = log;
+        if (log.length < 5 || readInt(0) != GameLog.MAGIC || log[4] != GameLog.VERSION) {
+            throw new IllegalArgumentException("not a game log");
+        }
+
+        int[] offsets = new int[64];
+        long[] keyframes = new long[3 * 4];
+        int records = 0;
+        int pos = 5;
+        try {
+            while (pos < log.length) {
+                if (records == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, records * 2);
+                }
+                offsets[records] = pos;
+                pos = apply(pos, barrels);
+
+                if (records % KEYFRAME == 0) {
+                    int k = records / KEYFRAME * 3;
+                    if (k == keyframes.length) {
+                        keyframes = Arrays.copyOf(keyframes, k * 2);
+                    }
+                    System.arraycopy(barrels, 0, keyframes, k, 3);
+                }
+                records++;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("truncated game log");
+        }
+        if (pos != log.length || records == 0) {
+            throw new IllegalArgumentException("truncated game log");
+        }
+
+        this.offsets = Arrays.copyOf(offsets, records);
+        this.keyframes = keyframes;
+        seek(0);
+    }
+
+    public static GameReplay load(File file) throws IOException {
+        return new GameReplay(Files.readAllBytes(file.toPath()));
+    }
+
+    /**
+     * Prints the state of a recorded game at the given ticks, or at its end.
+     */
+    public static void main(String[] args) throws IOException {
+        GameReplay replay = load(new File(args[0]));
+        System.out.println(replay.ticks() + " ticks");
+
+        for (int i = 1; i < Math.max(args.length, 2); i++) {
+            replay.seek(i < args.length ? Integer.parseInt(args[i]) : replay.ticks());
+            System.out.println("tick " + replay.getTick() + ":");
+            System.out.println("  red:  " + replay.describe(1));
+            System.out.println("  blue: " + replay.describe(2));
+            System.out.println("  fuel: " + replay.getBarrels());
+        }
+    }
+
+    /**
+     * Returns the number of ticks in the game. Tick 0 is the start of the game.
+     */
+    public int ticks() {
+        return offsets.length - 1;
+    }
+
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Moves the replay to a tick.
+     */
+    public void seek(int tick) {
+        if (tick < 0 || tick >= offsets.length) {
+            throw new IndexOutOfBoundsException("tick " + tick + " of " + ticks());
+        }
+        // carry on from here if that's closer than the keyframe
+        if (this.tick < 0 || tick < this.tick || tick / KEYFRAME > this.tick / KEYFRAME) {
+            System.arraycopy(keyframes, tick / KEYFRAME * 3, barrels, 0, 3);
+            this.tick = tick / KEYFRAME * KEYFRAME;
+        }
+        while (this.tick < tick) {
+            apply(offsets[++this.tick], barrels);
+        }
+    }
+
+    // the state of robot 1 or 2 at the current tick
+
+    public int getX(int robot) {
+        return state(robot) & 0xF;
+    }
+
+    public int getY(int robot) {
+        return (state(robot) >> 4) & 0xF;
+    }
+
+    public String getDirection(int robot) {
+        return DIRECTIONS[(state(robot) >> 8) & 3];
+    }
+
+    public boolean isShieldOn(int robot) {
+        return (state(robot) & (1 << 10)) != 0;
+    }
+
+    public int getFuel(int robot) {
+        return state(robot) >> 16;
+    }
+
+    /**
+     * Returns the fuel barrels at the current tick.
+     */
+    public List<Point> getBarrels() {
+        List<Point> points = new ArrayList<Point>();
+        for (int i = 0; i < 3; i++) {
+            for (long bits = barrels[i]; bits != 0; bits &= bits - 1) {
+                int cell = i * 64 + Long.numberOfTrailingZeros(bits);
+                points.add(new Point(FuelGrid.x(cell), FuelGrid.y(cell)));
+            }
+        }
+        return points;
+    }
+
+    public boolean hasBarrel(int x, int y) {
+        return FuelGrid.has(barrels, FuelGrid.cell(x, y));
+    }
+
+    /**
+     * Describes a robot the way Robot.readState does.
+     */
+    public String describe(int robot) {
+        return "x=" + getX(robot) + " y=" + getY(robot) + " dir=" + getDirection(robot)
+                + " fuel=" + getFuel(robot) + " shield=" + isShieldOn(robot);
+    }
+
+    private int state(int robot) {
+        return readInt(offsets[tick] + (robot - 1) * 4);
+    }
+
+    /**
+     * Applies the barrel changes of the record at pos, and returns where the next
+     * record starts.
+     */
+    private int apply(int pos, long[] barrels) {
+        pos += 8;
+        for (int change = 0; change < 2; change++) {
+            int count = log[pos++] & 0xFF;
+            for (int i = 0; i < count; i++) {
+                int cell = log[pos++] & 0xFF;
+                if (change == 0) {
+                    barrels[cell >> 6] |= 1L << cell;
+                } else {
+                    barrels[cell >> 6] &= ~(1L << cell);
+                }
+            }
+        }
+        return pos;
+    }
+
+    private int readInt(int pos) {
+        return (log[pos] & 0xFF) << 24 | (log[pos + 1] & 0xFF) << 16 | (log[pos + 2] & 0xFF) << 8 | (log[pos + 3] & 0xFF);
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.*;
+
+class IfStatement implements RobotProgramNode {
+    public Condition condition;
+    BLOCK block;
+    public ElseStatement elseStatement;
+    public ArrayList<IfStatement> elseIfs = new ArrayList<>();
+
+    IfStatement(Condition condition, BLOCK block) {
+        this.condition = condition;
+        this.block = block;
+    }
+
+    @Override
+    public void execute(Robot robot) {
+        if (robot.isDead()) {
+            return;
+        }
+
+        boolean execElse = true;
+
+        if (condition.isTrue(robot)) {
+            block.execute(robot);
+        } else if (!elseIfs.isEmpty()) {
+            for (IfStatement statement : elseIfs) {
+                if (statement.condition.isTrue(robot)) {
+                    statement.execute(robot);
+                    execElse = false;
+                    break;
+                }
+            }
+        }
+
+        if (execElse && elseStatement != null) {
+            elseStatement.execute(robot);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("If " + condition.toString() + block.toString());
+
+        for (IfStatement statement : elseIfs) {
+            s.append("elif").append(statement.condition).append(block.toString()).append("\n");
+        }
+
+        if (elseStatement != null) {
+            s.append(elseStatement.toString());
+        }
+
+        return s.toString();
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Splits a robot program into tokens in a single pass. Tokens are separated by
+ * white space, and each of (){},; is a token of its own, like the delimiter the
+ * parser's Scanner used to have. Every token gets a kind, and keywords each have
+ * a kind of their own, so the parser only compares ints.
+ */
+class Lexer {
+
+    // token kinds, each is below 64 so sets of kinds fit in a long
+    static final int
+            EOF = 0, NUMBER = 1, VARIABLE = 2, WORD = 3,
+            OPEN_PAREN = 4, CLOSE_PAREN = 5, OPEN_BRACE = 6, CLOSE_BRACE = 7,
+            COMMA = 8, SEMICOLON = 9, EQUALS = 10,
+            MOVE = 11, TURN_L = 12, TURN_R = 13, TURN_AROUND = 14, TAKE_FUEL = 15,
+            WAIT = 16, SHIELD_ON = 17, SHIELD_OFF = 18,
+            LOOP = 19, WHILE = 20, IF = 21, ELIF = 22, ELSE = 23, VARS = 24,
+            AND = 25, OR = 26, NOT = 27, GT = 28, LT = 29, EQ = 30,
+            ADD = 31, SUB = 32, MUL = 33, DIV = 34,
+            FUEL_LEFT = 35, OPP_LR = 36, OPP_FB = 37, NUM_BARRELS = 38,
+            BARREL_LR = 39, BARREL_FB = 40, WALL_DIST = 41;
+
+    // sets of kinds
+    static final long
+            ACTIONS = range(MOVE, SHIELD_OFF),
+            CONDOPS = range(AND, NOT),
+            RELOPS = range(GT, EQ),
+            OPS = range(ADD, DIV),
+            SENSORS = range(FUEL_LEFT, WALL_DIST),
+            EXPS = (1L << NUMBER) | (1L << VARIABLE) | OPS | SENSORS;
+
+    private static final String[] KEYWORDS = {
+            "move", "turnL", "turnR", "turnAround", "takeFuel", "wait", "shieldOn", "shieldOff",
+            "loop", "while", "if", "elif", "else", "vars",
+            "and", "or", "not", "gt", "lt", "eq", "add", "sub", "mul", "div",
+            "fuelLeft", "oppLR", "oppFB", "numBarrels", "barrelLR", "barrelFB", "wallDist"
+    };
+
+    private static final HashMap<String, Integer> KEYWORD_KINDS = new HashMap<>();
+
+    static {
+        for (int i = 0; i < KEYWORDS.length; i++) {
+            KEYWORD_KINDS.put(KEYWORDS[i], MOVE + i);
+        }
+    }
+
+    private static long range(int first, int last) {
+        return (-1L >>> (63 - last)) & (-1L << first);
+    }
+
+    private final String source;
+    private int[] kinds = new int[64];
+    private int[] values = new int[64];
+    private String[] names = new String[64];
+    private int[] lines = new int[64];
+    private int[] columns = new int[64];
+    private int count = 0;
+
+    private Lexer(String source) {
+        this.source = source;
+    }
+
+    /**
+     * Returns the tokens of a program, ending with an EOF token.
+     */
+    static Tokens lex(String source) {
+        Lexer lexer = new Lexer(source);
+        lexer.run();
+
+        int n = lexer.count;
+        return new Tokens(Arrays.copyOf(lexer.kinds, n), Arrays.copyOf(lexer.values, n),
+                Arrays.copyOf(lexer.names, n), Arrays.copyOf(lexer.lines, n), Arrays.copyOf(lexer.columns, n));
+    }
+
+    private void run() {
+        int length = source.length();
+        int line = 1;
+        int lineStart = 0;
+        int i = 0;
+
+        while (i < length) {
+            char c = source.charAt(i);
+
+            if (c == '\n') {
+                line++;
+                lineStart = ++i;
+                continue;
+            }
+            if (isSpace(c)) {
+                i++;
+                continue;
+            }
+
+            int column = i - lineStart + 1;
+            int kind = punctuation(c);
+            if (kind != WORD) {
+                add(kind, 0, String.valueOf(c), line, column);
+                i++;
+                continue;
+            }
+
+            int start = i;
+            while (i < length && !isSpace(source.charAt(i)) && punctuation(source.charAt(i)) == WORD) {
+                i++;
+            }
+            word(start, i, line, column);
+        }
+
+        add(EOF, 0, "end of file", line, length - lineStart + 1);
+    }
+
+    /**
+     * Adds a token for a word, which is a keyword, a number, a variable, an
+     * equals sign, or anything else.
+     */
+    private void word(int start, int end, int line, int column) {
+        String text = source.substring(start, end);
+        Integer keyword = KEYWORD_KINDS.get(text);
+
+        if (keyword != null) {
+            add(keyword, 0, KEYWORDS[keyword - MOVE], line, column);
+        } else if (isNumber(text)) {
+            try {
+                add(NUMBER, Integer.parseInt(text), text, line, column);
+            } catch (NumberFormatException e) {
+                throw new ParserFailureException("invalid number\n   @ line " + line + ", column " + column + ": " + text);
+            }
+        } else if (isVariable(text)) {
+            add(VARIABLE, 0, text.intern(), line, column);
+        } else if (text.equals("=")) {
+            add(EQUALS, 0, "=", line, column);
+        } else {
+            add(WORD, 0, text.intern(), line, column);
+        }
+    }
+
+    private void add(int kind, int value, String name, int line, int column) {
+        if (count == kinds.length) {
+            int capacity = count * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            values = Arrays.copyOf(values, capacity);
+            names = Arrays.copyOf(names, capacity);
+            lines = Arrays.copyOf(lines, capacity);
+            columns = Arrays.copyOf(columns, capacity);
+        }
+
+        kinds[count] = kind;
+        values[count] = value;
+        names[count] = name;
+        lines[count] = line;
+        columns[count] = column;
+        count++;
+    }
+
+    /**
+     * Returns the kind of a punctuation character, or WORD if it's part of a word.
+     */
+    private static int punctuation(char c) {
+        switch (c) {
+            case '(':
+                return OPEN_PAREN;
+            case ')':
+                return CLOSE_PAREN;
+            case '{':
+                return OPEN_BRACE;
+            case '}':
+                return CLOSE_BRACE;
+            case ',':
+                return COMMA;
+            case ';':
+                return SEMICOLON;
+        }
+        return WORD;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == '\u000B';
+    }
+
+    /**
+     * -?[0-9]+
+     */
+    private static boolean isNumber(String text) {
+        int i = text.startsWith("-") ? 1 : 0;
+        if (i == text.length()) {
+            return false;
+        }
+        for (; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * \$[A-Za-z][A-Za-z0-9]*
+     */
+    private static boolean isVariable(String text) {
+        if (text.length() < 2 || text.charAt(0) != '$' || !isLetter(text.charAt(1))) {
+            return false;
+        }
+        for (int i = 2; i < text.length(); i++) {
+            if (!isLetter(text.charAt(i)) && (text.charAt(i) < '0' || text.charAt(i) > '9')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
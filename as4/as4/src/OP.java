@@ -0,0 +1,38 @@
+class OP {
+    EXP exp1;
+    EXP exp2;
+    OPs operation;
+
+    public enum OPs {
+        add,
+        sub,
+        mul,
+        div
+    }
+
+    public OP(EXP exp1, EXP exp2, OPs operation) {
+        this.exp1 = exp1;
+        this.exp2 = exp2;
+        this.operation = operation;
+    }
+
+    public int result(Robot robot) {
+        switch (operation) {
+            case add:
+                return exp1.getEXP(robot) + exp2.getEXP(robot);
+            case sub:
+                return exp1.getEXP(robot) - exp2.getEXP(robot);
+            case mul:
+                return exp1.getEXP(robot) * exp2.getEXP(robot);
+            case div:
+                return exp1.getEXP(robot) / exp2.getEXP(robot);
+        }
+
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return operation + "(" + exp1 + ", " + exp2 + ")";
+    }
+}
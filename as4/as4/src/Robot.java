@@ -20,17 +20,22 @@ public class Robot {
     // Robot Actions
     // -------------
 
-    HashMap<String, Integer> variables = new HashMap<>();
+    // the program's variables, by the slot the parser gave them
+    int[] variables = new int[0];
 
-    public void addVariable(String name, int value) {
-        variables.put(name, value);
+    /**
+     * Gives the robot a new frame of variables, all set to 0.
+     */
+    public void newFrame(int size) {
+        variables = new int[size];
     }
 
-    public int getVariable(String name) {
-        if (variables.get(name) == null) {
-            return 0;
-        }
-        return variables.get(name);
+    public void setVariable(int slot, int value) {
+        variables[slot] = value;
+    }
+
+    public int getVariable(int slot) {
+        return variables[slot];
     }
 
     /**
@@ -234,8 +239,8 @@ public class Robot {
     public int numBarrels() {
         if (cancelled)
             throw new RobotInterruptedException();
-        debug("numBarrels = " + barrels.size());
-        return barrels.size();
+        debug("numBarrels = " + barrelCount);
+        return barrelCount;
     }
 
     /**
@@ -274,7 +279,7 @@ public class Robot {
     public int getBarrelLR(int n) {
         if (cancelled)
             throw new RobotInterruptedException();
-        int val = (n >= barrels.size()) ? INFINITY : barrels.get(n).x;
+        int val = (n >= barrelCount) ? INFINITY : relativeLR(nearestBarrel(n));
         debug(((n == 0) ? "" : (n + "th")) + "closestBarrelLR = " + ((val == INFINITY) ? "INFINITY" : "" + val));
         return val;
     }
@@ -289,7 +294,7 @@ public class Robot {
     public int getBarrelFB(int n) {
         if (cancelled)
             throw new RobotInterruptedException();
-        int val = (n >= barrels.size()) ? INFINITY : barrels.get(n).y;
+        int val = (n >= barrelCount) ? INFINITY : relativeFB(nearestBarrel(n));
         debug(((n == 0) ? "" : (n + "th")) + "closestBarrelFB = " + ((val == INFINITY) ? "INFINITY" : "" + val));
         return val;
     }
@@ -333,10 +338,20 @@ public class Robot {
 
     private World world;
     private Point otherRobotPos;
-    private List<Point> barrels = new ArrayList<Point>();
+    // the barrels at the last update, and the nearest of them found so far, in
+    // order of distance, found by walking the cells from the robot's cell
+    private long[] barrels = new long[3];
+    private int barrelCount;
+    private int[] nearest = new int[FuelGrid.CELLS];
+    private int nearestFound, cellsWalked;
     private RobotProgramNode program;
 
-    private boolean shield, dead, finished, cancelled;
+    private boolean shield, finished;
+    // set by the world's thread and read by the robot's, so they must be volatile
+    private volatile boolean dead, cancelled;
+    // whether the robot is taking fuel from the other robot this tick, which is
+    // completed once both robots have chosen their actions
+    private boolean siphoning;
     private int fuel = 100, targetFuel;
     private int x, y, targetX, targetY;
     private DIRECTION dir, targetDir;
@@ -344,7 +359,10 @@ public class Robot {
     private int currentAction;
     private String colour;
     private BufferedImage robotImage1, robotImage2, shieldImage;
+    private boolean imagesLoaded = false;
     private boolean noWait = false;
+    // stops the robot printing its state, for games played without anyone watching
+    private boolean quiet = false;
 
     public Robot(World world, int x, int y, String colour, boolean noWait) {
         this.world = world;
@@ -357,6 +375,14 @@ public class Robot {
         dir = (y < World.SIZE / 2) ? DIRECTION.SOUTH : DIRECTION.NORTH;
         targetDir = dir;
         targetFuel = fuel;
+    }
+
+    /**
+     * Loads the images the first time the robot is drawn, so robots that are
+     * never drawn don't read them.
+     */
+    private void loadImages() {
+        imagesLoaded = true;
         try {
             robotImage1 = ImageIO.read(new File("assets/robot_" + colour + "_1.png"));
             robotImage2 = ImageIO.read(new File("assets/robot_" + colour + "_2.png"));
@@ -366,15 +392,31 @@ public class Robot {
         }
     }
 
-    private ArrayList<String> history = new ArrayList<>();
-
     /**
-     * Encodes the state of the robot, used for automarking.
+     * Encodes the state of the robot, used for automarking. Games played in
+     * lock step are recorded by the world's GameLog instead.
      */
     public void readState() {
-        String state = "x=" + x + " y=" + y + " dir=" + dir + " fuel=" + fuel + " shield=" + shield;
-        history.add(state);
-        System.out.println(state);
+        if (quiet)
+            return;
+        System.out.println("x=" + x + " y=" + y + " dir=" + dir + " fuel=" + fuel + " shield=" + shield);
+    }
+
+    /**
+     * Packs the robot's position, direction, shield and fuel into an int, for
+     * GameLog: x and y in bits 0-7, the direction in bits 8-9, the shield in bit
+     * 10 and the fuel in the top 16 bits.
+     */
+    int packState() {
+        return x | y << 4 | dir.ordinal() << 8 | (shield ? 1 << 10 : 0) | fuel << 16;
+    }
+
+    /**
+     * Stops the robot printing its state after every action, and when it takes
+     * fuel from the other robot.
+     */
+    void setQuiet(boolean quiet) {
+        this.quiet = quiet;
     }
 
     /**
@@ -406,6 +448,17 @@ public class Robot {
         updatePending();
         fuel = 0;
         targetFuel = 0;
+        // stops loops that never call the robot
+        dead = true;
+    }
+
+    /**
+     * Called by the "World" only, when there is no GUI to notice that the robot
+     * has run out of fuel.
+     */
+    public void checkFuel() {
+        if (fuel <= 0)
+            dead = true;
     }
 
     /**
@@ -427,6 +480,8 @@ public class Robot {
      * @param time
      */
     public void draw(Graphics2D g2d, double time) {
+        if (!imagesLoaded)
+            loadImages();
         double x = this.x * (1 - time) + targetX * time;
         double y = this.y * (1 - time) + targetY * time;
         x = x * WorldComponent.GRID_SIZE + WorldComponent.GRID_SIZE / 2d;
@@ -538,11 +593,7 @@ public class Robot {
                     if (other != null && !other.shield) {
                         Point otherP = getOtherRobotPosition(); // relative position
                         if (otherP.x == 0 && otherP.y == 1) {
-                            System.out.println("Taking fuel");
-                            int takeFuel = Math.min(25, other.targetFuel / 2);
-                            takeFuel = Math.min(other.targetFuel, takeFuel);
-                            targetFuel = Math.min(100, targetFuel + takeFuel);
-                            other.targetFuel -= takeFuel;
+                            siphoning = true;
                             return;
                         }
                     }
@@ -557,20 +608,45 @@ public class Robot {
             targetFuel -= FUEL_SHIELD;
     }
 
+    /**
+     * Returns how much fuel the robot takes from the other robot this tick, or
+     * 0 if it isn't siphoning. Only meaningful once both robots have used their
+     * fuel for the tick, so the amount doesn't depend on which chose first.
+     */
+    int siphonAmount() {
+        if (!siphoning)
+            return 0;
+        Robot other = world.getOtherRobot(this);
+        return Math.min(other.targetFuel, Math.min(25, other.targetFuel / 2));
+    }
+
+    /**
+     * Called by the "World" only, to add the fuel this robot takes from the
+     * other one, and take away the fuel the other one takes from it.
+     */
+    void exchangeFuel(int taken, int lost) {
+        if (siphoning) {
+            siphoning = false;
+            if (!quiet)
+                System.out.println("Taking fuel");
+        }
+        targetFuel = Math.min(100, targetFuel + taken) - lost;
+    }
+
     private void processFuelAndBlock() {
         if (cancelled)
             throw new RobotInterruptedException();
         // use fuel
         processFuel();
         if (this.noWait) {
+            int taken = siphonAmount();
+            exchangeFuel(taken, 0);
+            if (taken > 0)
+                world.getOtherRobot(this).exchangeFuel(0, taken);
             updatePending();
         } else {
-            while (currentAction != 0) {
-                try {
-                    Thread.sleep(10);
-                } catch (InterruptedException e) {
-                }
-            }
+            // parks until the world has advanced a tick
+            world.endTurn(this);
         }
     }
 
@@ -588,21 +664,61 @@ public class Robot {
             processFuel();
         }
         otherRobotPos = getOtherRobotPosition();
-        barrels = new ArrayList<Point>(world.getAvailableFuel());
-        for (int i = 0; i < barrels.size(); i++) {
-            Point p = toRelative(barrels.get(i));
-            barrels.set(i, p);
+        world.getFuelGrid().copyTo(barrels);
+        barrelCount = Long.bitCount(barrels[0]) + Long.bitCount(barrels[1]) + Long.bitCount(barrels[2]);
+        nearestFound = 0;
+        cellsWalked = 0;
+        currentAction = 0;
+    }
+
+    /**
+     * Returns the cell of the nth nearest barrel, walking only as many cells as
+     * it takes to find it. n must be less than the number of barrels.
+     */
+    private int nearestBarrel(int n) {
+        int from = FuelGrid.cell(x, y);
+        while (nearestFound <= n) {
+            int cell = FuelGrid.byDistance(from, cellsWalked++);
+            if (FuelGrid.has(barrels, cell))
+                nearest[nearestFound++] = cell;
         }
-        Collections.sort(barrels, new Comparator<Point>() {
+        return nearest[n];
+    }
 
-            @Override
-            public int compare(Point p1, Point p2) {
-                int d1 = Math.abs(p1.x) + Math.abs(p1.y);
-                int d2 = Math.abs(p2.x) + Math.abs(p2.y);
-                return d1 - d2;
-            }
-        });
-        currentAction = 0;
+    /**
+     * The left-right part of a cell's position relative to the robot, like toRelative.
+     */
+    private int relativeLR(int cell) {
+        int rx = FuelGrid.x(cell);
+        int ry = FuelGrid.y(cell);
+        switch (dir) {
+            case NORTH:
+                return rx - x;
+            case SOUTH:
+                return x - rx;
+            case WEST:
+                return y - ry;
+            default:
+                return ry - y;
+        }
+    }
+
+    /**
+     * The front-back part of a cell's position relative to the robot, like toRelative.
+     */
+    private int relativeFB(int cell) {
+        int rx = FuelGrid.x(cell);
+        int ry = FuelGrid.y(cell);
+        switch (dir) {
+            case NORTH:
+                return y - ry;
+            case SOUTH:
+                return ry - y;
+            case WEST:
+                return x - rx;
+            default:
+                return rx - x;
+        }
     }
 
     public String toString() {
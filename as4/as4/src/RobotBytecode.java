@@ -0,0 +1,199 @@
+/**
+ * A robot program compiled to a flat array of int instructions, which is run by
+ * a single dispatch loop over an int stack instead of walking the tree of
+ * nodes. Each opcode is followed by its operand, if it has one, jump targets are
+ * instruction indices, and conditions are pushed as 1 (true) or 0 (false).
+ */
+class RobotBytecode implements RobotProgramNode {
+
+    static final int
+            // PUSH n, LOAD slot, STORE slot
+            PUSH = 0, LOAD = 1, STORE = 2,
+            // arithmetic and comparisons, pop two values and push the result
+            ADD = 3, SUB = 4, MUL = 5, DIV = 6, GT = 7, LT = 8, EQ = 9, NOT = 10,
+            // JUMP target, the conditional jumps pop the condition
+            JUMP = 11, JUMP_IF_FALSE = 12, JUMP_IF_TRUE = 13, JUMP_IF_DEAD = 14,
+            // actions, MOVE and WAIT pop the number of times to repeat the action
+            MOVE = 15, WAIT = 16, TURN_LEFT = 17, TURN_RIGHT = 18, TURN_AROUND = 19,
+            TAKE_FUEL = 20, SHIELD_ON = 21, SHIELD_OFF = 22,
+            // sensors, the NTH sensors pop the barrel index
+            FUEL_LEFT = 23, OPP_LR = 24, OPP_FB = 25, NUM_BARRELS = 26, BARREL_LR = 27,
+            BARREL_FB = 28, NTH_BARREL_LR = 29, NTH_BARREL_FB = 30, WALL_DIST = 31,
+            HALT = 32;
+
+    private static final String[] NAMES = {
+            "PUSH", "LOAD", "STORE", "ADD", "SUB", "MUL", "DIV", "GT", "LT", "EQ", "NOT",
+            "JUMP", "JUMP_IF_FALSE", "JUMP_IF_TRUE", "JUMP_IF_DEAD", "MOVE", "WAIT",
+            "TURN_LEFT", "TURN_RIGHT", "TURN_AROUND", "TAKE_FUEL", "SHIELD_ON", "SHIELD_OFF",
+            "FUEL_LEFT", "OPP_LR", "OPP_FB", "NUM_BARRELS", "BARREL_LR", "BARREL_FB",
+            "NTH_BARREL_LR", "NTH_BARREL_FB", "WALL_DIST", "HALT"
+    };
+
+    final int[] code;
+    // the names of the variables, by the slots LOAD and STORE refer to
+    final String[] variables;
+    // the deepest the stack gets
+    final int maxStack;
+
+    RobotBytecode(int[] code, String[] variables, int maxStack) {
+        this.code = code;
+        this.variables = variables;
+        this.maxStack = maxStack;
+    }
+
+    /**
+     * Returns whether an opcode is followed by an operand.
+     */
+    static boolean hasOperand(int opcode) {
+        return opcode == PUSH || opcode == LOAD || opcode == STORE
+                || (opcode >= JUMP && opcode <= JUMP_IF_DEAD);
+    }
+
+    @Override
+    public void execute(Robot robot) {
+        int[] code = this.code;
+        int[] stack = new int[maxStack];
+        int top = 0;
+        int pc = 0;
+        robot.newFrame(variables.length);
+
+        while (true) {
+            switch (code[pc++]) {
+                case PUSH:
+                    stack[top++] = code[pc++];
+                    break;
+                case LOAD:
+                    stack[top++] = robot.getVariable(code[pc++]);
+                    break;
+                case STORE:
+                    robot.setVariable(code[pc++], stack[--top]);
+                    break;
+                case ADD:
+                    top--;
+                    stack[top - 1] += stack[top];
+                    break;
+                case SUB:
+                    top--;
+                    stack[top - 1] -= stack[top];
+                    break;
+                case MUL:
+                    top--;
+                    stack[top - 1] *= stack[top];
+                    break;
+                case DIV:
+                    top--;
+                    stack[top - 1] /= stack[top];
+                    break;
+                case GT:
+                    top--;
+                    stack[top - 1] = stack[top - 1] > stack[top] ? 1 : 0;
+                    break;
+                case LT:
+                    top--;
+                    stack[top - 1] = stack[top - 1] < stack[top] ? 1 : 0;
+                    break;
+                case EQ:
+                    top--;
+                    stack[top - 1] = stack[top - 1] == stack[top] ? 1 : 0;
+                    break;
+                case NOT:
+                    stack[top - 1] ^= 1;
+                    break;
+                case JUMP:
+                    pc = code[pc];
+                    break;
+                case JUMP_IF_FALSE:
+                    pc = stack[--top] == 0 ? code[pc] : pc + 1;
+                    break;
+                case JUMP_IF_TRUE:
+                    pc = stack[--top] != 0 ? code[pc] : pc + 1;
+                    break;
+                case JUMP_IF_DEAD:
+                    pc = robot.isDead() ? code[pc] : pc + 1;
+                    break;
+                case MOVE:
+                    for (int n = stack[--top]; n > 0; n--) {
+                        robot.move();
+                    }
+                    break;
+                case WAIT:
+                    for (int n = stack[--top]; n > 0; n--) {
+                        robot.idleWait();
+                    }
+                    break;
+                case TURN_LEFT:
+                    robot.turnLeft();
+                    break;
+                case TURN_RIGHT:
+                    robot.turnRight();
+                    break;
+                case TURN_AROUND:
+                    robot.turnAround();
+                    break;
+                case TAKE_FUEL:
+                    robot.takeFuel();
+                    break;
+                case SHIELD_ON:
+                    robot.setShield(true);
+                    break;
+                case SHIELD_OFF:
+                    robot.setShield(false);
+                    break;
+                case FUEL_LEFT:
+                    stack[top++] = robot.getFuel();
+                    break;
+                case OPP_LR:
+                    stack[top++] = robot.getOpponentLR();
+                    break;
+                case OPP_FB:
+                    stack[top++] = robot.getOpponentFB();
+                    break;
+                case NUM_BARRELS:
+                    stack[top++] = robot.numBarrels();
+                    break;
+                case BARREL_LR:
+                    stack[top++] = robot.getClosestBarrelLR();
+                    break;
+                case BARREL_FB:
+                    stack[top++] = robot.getClosestBarrelFB();
+                    break;
+                case NTH_BARREL_LR:
+                    stack[top - 1] = robot.getBarrelLR(stack[top - 1]);
+                    break;
+                case NTH_BARREL_FB:
+                    stack[top - 1] = robot.getBarrelFB(stack[top - 1]);
+                    break;
+                case WALL_DIST:
+                    stack[top++] = robot.getDistanceToWall();
+                    break;
+                case HALT:
+                    return;
+                default:
+                    throw new IllegalStateException("invalid opcode " + code[pc - 1] + " at " + (pc - 1));
+            }
+        }
+    }
+
+    /**
+     * Lists the instructions, one per line.
+     */
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+
+        for (int pc = 0; pc < code.length; pc++) {
+            int opcode = code[pc];
+            s.append(pc).append(": ").append(NAMES[opcode]);
+
+            if (opcode == LOAD || opcode == STORE) {
+                s.append(' ').append(variables[code[++pc]]);
+            } else if (hasOperand(opcode)) {
+                s.append(' ').append(code[++pc]);
+            }
+
+            s.append("\n");
+        }
+
+        return s.toString();
+    }
+}
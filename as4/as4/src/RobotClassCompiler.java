@@ -0,0 +1,434 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Compiles a robot program into a class of its own, which implements
+ * RobotProgramNode with a single execute method, so the JIT compiler can inline
+ * the whole program instead of dispatching on every node. The RobotBytecode
+ * instructions are stack based like JVM bytecode, so each one is translated
+ * straight into the JVM instructions that do the same thing, and the class is
+ * loaded as a hidden class.
+ *
+ * The class file is written by hand, with version 49, since older class files
+ * don't need stack map frames.
+ */
+class RobotClassCompiler {
+
+    private static final int VERSION = 49;
+    // the longest method the JVM allows
+    private static final int MAX_CODE = 65535;
+
+    // JVM opcodes
+    private static final int
+            ICONST_0 = 0x03, BIPUSH = 0x10, SIPUSH = 0x11, LDC_W = 0x13,
+            ILOAD_2 = 0x1c, ALOAD_0 = 0x2a, ALOAD_1 = 0x2b, ISTORE_2 = 0x3d, SWAP = 0x5f,
+            IADD = 0x60, ISUB = 0x64, IMUL = 0x68, IDIV = 0x6c, IXOR = 0x82, IINC = 0x84,
+            IFEQ = 0x99, IFNE = 0x9a, IFLE = 0x9e, IF_ICMPEQ = 0x9f, IF_ICMPLT = 0xa1, IF_ICMPGT = 0xa3,
+            GOTO = 0xa7, RETURN = 0xb1, INVOKEVIRTUAL = 0xb6, INVOKESPECIAL = 0xb7;
+
+    private final RobotBytecode program;
+    private final ConstantPool pool = new ConstantPool();
+    private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+    // the offset of each RobotBytecode instruction in the JVM code
+    private final int[] offsets;
+    // the branches to RobotBytecode instructions, as (branch offset, target pc) pairs
+    private final ArrayList<int[]> branches = new ArrayList<>();
+
+    private RobotClassCompiler(RobotBytecode program) {
+        this.program = program;
+        offsets = new int[program.code.length];
+    }
+
+    /**
+     * Compiles a program to a hidden class, and returns an instance of it. If the
+     * program is too long for a single method, it's run by the RobotBytecode
+     * interpreter instead.
+     */
+    static RobotProgramNode compile(RobotProgramNode program) {
+        RobotBytecode bytecode = program instanceof RobotBytecode
+                ? (RobotBytecode) program : BytecodeCompiler.compile(program);
+
+        byte[] classFile = new RobotClassCompiler(bytecode).toClassFile();
+        if (classFile == null) {
+            return bytecode;
+        }
+
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classFile, true);
+            return (RobotProgramNode) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class))
+                    .invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("couldn't load the compiled robot program", e);
+        }
+    }
+
+    /**
+     * Returns the class file, or null if the program doesn't fit in one method.
+     */
+    private byte[] toClassFile() {
+        int thisClass = pool.classRef("RobotProgram");
+        int superClass = pool.classRef("java/lang/Object");
+        int nodeInterface = pool.classRef("RobotProgramNode");
+        int init = pool.methodRef("java/lang/Object", "<init>", "()V");
+
+        if (!translate()) {
+            return null;
+        }
+        byte[] executeCode = code.toByteArray();
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            int codeAttribute = pool.utf8("Code");
+            int initName = pool.utf8("<init>");
+            int initType = pool.utf8("()V");
+            int executeName = pool.utf8("execute");
+            int executeType = pool.utf8("(LRobot;)V");
+
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            pool.write(out);
+
+            // ACC_FINAL, and ACC_SUPER
+            out.writeShort(0x0010 | 0x0020);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(nodeInterface);
+            out.writeShort(0);
+
+            out.writeShort(2);
+
+            // public RobotProgram() { super(); }
+            out.writeShort(0x0001);
+            out.writeShort(initName);
+            out.writeShort(initType);
+            writeCode(out, codeAttribute, 1, 1, new byte[] {
+                    (byte) ALOAD_0, (byte) INVOKESPECIAL, (byte) (init >> 8), (byte) init, (byte) RETURN });
+
+            // public void execute(Robot robot), with an int local for repeat counts
+            out.writeShort(0x0001);
+            out.writeShort(executeName);
+            out.writeShort(executeType);
+            writeCode(out, codeAttribute, program.maxStack + 3, 3, executeCode);
+
+            out.writeShort(0);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeCode(DataOutputStream out, int name, int maxStack, int maxLocals, byte[] code)
+            throws IOException {
+        out.writeShort(1);
+        out.writeShort(name);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    /**
+     * Translates the RobotBytecode instructions into the code of execute, and
+     * fills in the branches.
+     *
+     * @return false if the code is too long
+     */
+    private boolean translate() {
+        int[] instructions = program.code;
+
+        // robot.newFrame(variable count)
+        emit(ALOAD_1);
+        pushInt(program.variables.length);
+        invoke("newFrame", "(I)V");
+
+        for (int pc = 0; pc < instructions.length; pc++) {
+            offsets[pc] = code.size();
+            int opcode = instructions[pc];
+            int operand = RobotBytecode.hasOperand(opcode) ? instructions[++pc] : 0;
+
+            switch (opcode) {
+                case RobotBytecode.PUSH:
+                    pushInt(operand);
+                    break;
+                case RobotBytecode.LOAD:
+                    emit(ALOAD_1);
+                    pushInt(operand);
+                    invoke("getVariable", "(I)I");
+                    break;
+                case RobotBytecode.STORE:
+                    emit(ISTORE_2);
+                    emit(ALOAD_1);
+                    pushInt(operand);
+                    emit(ILOAD_2);
+                    invoke("setVariable", "(II)V");
+                    break;
+                case RobotBytecode.ADD:
+                    emit(IADD);
+                    break;
+                case RobotBytecode.SUB:
+                    emit(ISUB);
+                    break;
+                case RobotBytecode.MUL:
+                    emit(IMUL);
+                    break;
+                case RobotBytecode.DIV:
+                    emit(IDIV);
+                    break;
+                case RobotBytecode.GT:
+                    compare(IF_ICMPGT);
+                    break;
+                case RobotBytecode.LT:
+                    compare(IF_ICMPLT);
+                    break;
+                case RobotBytecode.EQ:
+                    compare(IF_ICMPEQ);
+                    break;
+                case RobotBytecode.NOT:
+                    emit(ICONST_0 + 1);
+                    emit(IXOR);
+                    break;
+                case RobotBytecode.JUMP:
+                    branch(GOTO, operand);
+                    break;
+                case RobotBytecode.JUMP_IF_FALSE:
+                    branch(IFEQ, operand);
+                    break;
+                case RobotBytecode.JUMP_IF_TRUE:
+                    branch(IFNE, operand);
+                    break;
+                case RobotBytecode.JUMP_IF_DEAD:
+                    emit(ALOAD_1);
+                    invoke("isDead", "()Z");
+                    branch(IFNE, operand);
+                    break;
+                case RobotBytecode.MOVE:
+                    repeat("move");
+                    break;
+                case RobotBytecode.WAIT:
+                    repeat("idleWait");
+                    break;
+                case RobotBytecode.TURN_LEFT:
+                    action("turnLeft");
+                    break;
+                case RobotBytecode.TURN_RIGHT:
+                    action("turnRight");
+                    break;
+                case RobotBytecode.TURN_AROUND:
+                    action("turnAround");
+                    break;
+                case RobotBytecode.TAKE_FUEL:
+                    action("takeFuel");
+                    break;
+                case RobotBytecode.SHIELD_ON:
+                case RobotBytecode.SHIELD_OFF:
+                    emit(ALOAD_1);
+                    emit(opcode == RobotBytecode.SHIELD_ON ? ICONST_0 + 1 : ICONST_0);
+                    invoke("setShield", "(Z)V");
+                    break;
+                case RobotBytecode.FUEL_LEFT:
+                    sensor("getFuel");
+                    break;
+                case RobotBytecode.OPP_LR:
+                    sensor("getOpponentLR");
+                    break;
+                case RobotBytecode.OPP_FB:
+                    sensor("getOpponentFB");
+                    break;
+                case RobotBytecode.NUM_BARRELS:
+                    sensor("numBarrels");
+                    break;
+                case RobotBytecode.BARREL_LR:
+                    sensor("getClosestBarrelLR");
+                    break;
+                case RobotBytecode.BARREL_FB:
+                    sensor("getClosestBarrelFB");
+                    break;
+                case RobotBytecode.NTH_BARREL_LR:
+                    emit(ALOAD_1);
+                    emit(SWAP);
+                    invoke("getBarrelLR", "(I)I");
+                    break;
+                case RobotBytecode.NTH_BARREL_FB:
+                    emit(ALOAD_1);
+                    emit(SWAP);
+                    invoke("getBarrelFB", "(I)I");
+                    break;
+                case RobotBytecode.WALL_DIST:
+                    sensor("getDistanceToWall");
+                    break;
+                case RobotBytecode.HALT:
+                    emit(RETURN);
+                    break;
+            }
+
+            if (code.size() > MAX_CODE) {
+                return false;
+            }
+        }
+
+        // the branch offsets are relative to the branch instruction
+        byte[] bytes = code.toByteArray();
+        for (int[] branch : branches) {
+            int offset = offsets[branch[1]] - branch[0];
+            if (offset != (short) offset) {
+                return false;
+            }
+            bytes[branch[0] + 1] = (byte) (offset >> 8);
+            bytes[branch[0] + 2] = (byte) offset;
+        }
+        code.reset();
+        code.write(bytes, 0, bytes.length);
+
+        return true;
+    }
+
+    // utility methods for emitting code
+
+    private void emit(int opcode) {
+        code.write(opcode);
+    }
+
+    private void emitShort(int opcode, int operand) {
+        code.write(opcode);
+        code.write(operand >> 8);
+        code.write(operand);
+    }
+
+    private void pushInt(int n) {
+        if (n >= -1 && n <= 5) {
+            emit(ICONST_0 + n);
+        } else if (n == (byte) n) {
+            emit(BIPUSH);
+            emit(n);
+        } else if (n == (short) n) {
+            emitShort(SIPUSH, n);
+        } else {
+            emitShort(LDC_W, pool.integer(n));
+        }
+    }
+
+    private void branch(int opcode, int target) {
+        branches.add(new int[] { code.size(), target });
+        emitShort(opcode, 0);
+    }
+
+    private void invoke(String name, String type) {
+        emitShort(INVOKEVIRTUAL, pool.methodRef("Robot", name, type));
+    }
+
+    private void action(String name) {
+        emit(ALOAD_1);
+        invoke(name, "()V");
+    }
+
+    private void sensor(String name) {
+        emit(ALOAD_1);
+        invoke(name, "()I");
+    }
+
+    /**
+     * Pushes 1 if the comparison holds, and 0 otherwise.
+     */
+    private void compare(int opcode) {
+        emitShort(opcode, 7);
+        emit(ICONST_0);
+        emitShort(GOTO, 4);
+        emit(ICONST_0 + 1);
+    }
+
+    /**
+     * Calls an action the number of times on top of the stack.
+     */
+    private void repeat(String name) {
+        emit(ISTORE_2);
+        emit(ILOAD_2);
+        emitShort(IFLE, 13);
+        action(name);
+        code.write(IINC);
+        code.write(2);
+        code.write(-1);
+        emitShort(GOTO, -11);
+    }
+
+    /**
+     * The constant pool of the class, with each constant added once.
+     */
+    private static class ConstantPool {
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        private final HashMap<String, Integer> indices = new HashMap<>();
+        private int count = 1;
+
+        int utf8(String s) {
+            return add("utf8 " + s, out -> {
+                out.writeByte(1);
+                out.writeUTF(s);
+            });
+        }
+
+        int integer(int n) {
+            return add("int " + n, out -> {
+                out.writeByte(3);
+                out.writeInt(n);
+            });
+        }
+
+        int classRef(String name) {
+            int utf8 = utf8(name);
+            return add("class " + name, out -> {
+                out.writeByte(7);
+                out.writeShort(utf8);
+            });
+        }
+
+        int methodRef(String owner, String name, String type) {
+            int ownerClass = classRef(owner);
+            int nameUtf8 = utf8(name);
+            int typeUtf8 = utf8(type);
+            int nameAndType = add("nameAndType " + name + " " + type, out -> {
+                out.writeByte(12);
+                out.writeShort(nameUtf8);
+                out.writeShort(typeUtf8);
+            });
+            return add("method " + owner + "." + name + type, out -> {
+                out.writeByte(10);
+                out.writeShort(ownerClass);
+                out.writeShort(nameAndType);
+            });
+        }
+
+        private int add(String key, Entry entry) {
+            Integer index = indices.get(key);
+            if (index == null) {
+                try {
+                    entry.write(out);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                index = count++;
+                indices.put(key, index);
+            }
+            return index;
+        }
+
+        void write(DataOutputStream classFile) throws IOException {
+            classFile.writeShort(count);
+            classFile.write(bytes.toByteArray());
+        }
+
+        private interface Entry {
+            void write(DataOutputStream out) throws IOException;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+class SEN {
+    public enum SENs {
+        FUEL_LEFT,
+        OPP_LR,
+        OPP_FB,
+        NUM_BARRELS,
+        BARREL_LR,
+        N_BARREL_LR,
+        BARREL_FB,
+        N_BARREL_FB,
+        WALL_DIST
+    }
+
+    EXP n;
+
+    SENs sen;
+
+    public SEN(SENs sen) {
+        this.sen = sen;
+    }
+
+    public SEN(SENs sen, EXP n) {
+        this.sen = sen;
+        this.n = n;
+    }
+
+    public int getSEN(Robot robot) {
+        switch (sen) {
+            case FUEL_LEFT:
+                return robot.getFuel();
+            case OPP_LR:
+                return robot.getOpponentLR();
+            case OPP_FB:
+                return robot.getOpponentFB();
+            case NUM_BARRELS:
+                return robot.numBarrels();
+            case BARREL_LR:
+                return robot.getClosestBarrelLR();
+            case N_BARREL_LR:
+                return robot.getBarrelLR(n.getEXP(robot));
+            case BARREL_FB:
+                return robot.getClosestBarrelFB();
+            case N_BARREL_FB:
+                return robot.getBarrelFB(n.getEXP(robot));
+            case WALL_DIST:
+                return robot.getDistanceToWall();
+        }
+
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        switch (sen) {
+            case FUEL_LEFT:
+                return SENs.FUEL_LEFT.name();
+            case OPP_LR:
+                return SENs.OPP_LR.name();
+            case OPP_FB:
+                return SENs.OPP_FB.name();
+            case NUM_BARRELS:
+                return SENs.NUM_BARRELS.name();
+            case BARREL_LR:
+                return SENs.BARREL_LR.name();
+            case N_BARREL_LR:
+                return SENs.N_BARREL_LR.name();
+            case BARREL_FB:
+                return SENs.BARREL_FB.name();
+            case N_BARREL_FB:
+                return SENs.N_BARREL_FB.name();
+            case WALL_DIST:
+                return SENs.WALL_DIST.name();
+        }
+
+        return "\n";
+    }
+}
@@ -0,0 +1,17 @@
+class STMT implements RobotProgramNode {
+    RobotProgramNode child;
+
+    public STMT(RobotProgramNode child) {
+        this.child = child;
+    }
+
+    @Override
+    public void execute(Robot robot) {
+        child.execute(robot);
+    }
+
+    @Override
+    public String toString() {
+        return child.toString();
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * Runs the robots of a world in lock step, one tick at a time. Only one robot
+ * runs at once: a robot runs until it has chosen its next action, then parks
+ * and hands over to the next robot, and once every robot has chosen, the world
+ * advances a tick, which completes all their actions together. The robots always
+ * take their turns in the same order, so a game plays out the same way every
+ * time it is played.
+ */
+class TickScheduler {
+
+    private final boolean[] finished;
+    // the robot whose turn it is, or 0 when every robot has chosen its action
+    private int turn;
+    private int ticks = 0;
+    private boolean stopped = false;
+
+    /**
+     * Makes a scheduler for robots 1 to robots, where it is robot 1's turn first.
+     */
+    TickScheduler(int robots) {
+        finished = new boolean[robots + 1];
+        turn = robots > 0 ? 1 : 0;
+    }
+
+    /**
+     * Parks a robot's thread until it is the robot's turn.
+     */
+    synchronized void awaitTurn(int id) {
+        while (turn != id) {
+            // a robot can start waiting after the game has stopped
+            if (stopped) {
+                throw new RobotInterruptedException();
+            }
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                throw new RobotInterruptedException();
+            }
+        }
+    }
+
+    /**
+     * Called by a robot once it has chosen its action. Hands over to the next
+     * robot, and parks until the world has completed the action.
+     */
+    synchronized void endTurn(int id) {
+        passTurn(id);
+        awaitTurn(id);
+    }
+
+    /**
+     * Called when a robot's program has finished. The robot never has a turn
+     * again, and just waits every tick.
+     */
+    synchronized void finish(int id) {
+        finished[id] = true;
+        if (turn == id) {
+            passTurn(id);
+        }
+    }
+
+    /**
+     * Returns whether every robot has chosen its action, so the world can advance.
+     */
+    synchronized boolean isReady() {
+        return turn == 0;
+    }
+
+    /**
+     * Waits until every robot has chosen its action. Returns false if that takes
+     * longer than the timeout, which means the robot whose turn it is is stuck
+     * computing something. A timeout of 0 waits for as long as it takes.
+     */
+    synchronized boolean awaitReady(long timeoutMillis) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeoutMillis;
+
+        while (turn != 0) {
+            if (timeoutMillis == 0) {
+                wait();
+                continue;
+            }
+            long left = end - System.currentTimeMillis();
+            if (left <= 0) {
+                return false;
+            }
+            wait(left);
+        }
+
+        return true;
+    }
+
+    /**
+     * Called by the world once it has advanced a tick, to start the robots
+     * choosing their next actions.
+     */
+    synchronized void nextTick() {
+        ticks++;
+        passTurn(0);
+    }
+
+    /**
+     * Returns the robot whose turn it is, or 0 if every robot has chosen.
+     */
+    synchronized int getTurn() {
+        return turn;
+    }
+
+    synchronized int getTicks() {
+        return ticks;
+    }
+
+    /**
+     * Wakes every parked robot, which then stops with a RobotInterruptedException.
+     */
+    synchronized void stop() {
+        stopped = true;
+        notifyAll();
+    }
+
+    /**
+     * Gives the turn to the first robot after id that hasn't finished, or to the
+     * world if there is none.
+     */
+    private void passTurn(int id) {
+        turn = 0;
+        for (int next = id + 1; next < finished.length; next++) {
+            if (!finished[next]) {
+                turn = next;
+                break;
+            }
+        }
+        notifyAll();
+    }
+}
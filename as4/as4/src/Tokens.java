@@ -0,0 +1,78 @@
+/**
+ * The tokens of a program, stored as parallel arrays, and the position of the
+ * next token the parser will read.
+ */
+class Tokens {
+    private final int[] kinds;
+    private final int[] values;
+    // the text of each token, interned
+    private final String[] names;
+    private final int[] lines;
+    private final int[] columns;
+    private int position = 0;
+
+    Tokens(int[] kinds, int[] values, String[] names, int[] lines, int[] columns) {
+        this.kinds = kinds;
+        this.values = values;
+        this.names = names;
+        this.lines = lines;
+        this.columns = columns;
+    }
+
+    boolean hasNext() {
+        return kinds[position] != Lexer.EOF;
+    }
+
+    boolean hasNext(int kind) {
+        return kinds[position] == kind;
+    }
+
+    /**
+     * Checks whether the next token is one of a set of kinds.
+     */
+    boolean hasNextOf(long kinds) {
+        return ((kinds >>> this.kinds[position]) & 1) != 0;
+    }
+
+    /**
+     * Consumes the next token, and returns its kind.
+     */
+    int next() {
+        int kind = kinds[position];
+        if (kind != Lexer.EOF) {
+            position++;
+        }
+        return kind;
+    }
+
+    /**
+     * Consumes the next token, and returns its text.
+     */
+    String nextName() {
+        String name = names[position];
+        next();
+        return name;
+    }
+
+    /**
+     * Consumes the next token, and returns its value if it's a number.
+     */
+    int nextInt() {
+        int value = values[position];
+        next();
+        return value;
+    }
+
+    /**
+     * Describes where the next token is, followed by the next few tokens.
+     */
+    String describePosition() {
+        StringBuilder s = new StringBuilder("line " + lines[position] + ", column " + columns[position] + ": ...");
+
+        for (int i = position; i < position + 5 && kinds[i] != Lexer.EOF; i++) {
+            s.append(' ').append(names[i]);
+        }
+
+        return s.append("...").toString();
+    }
+}
@@ -0,0 +1,254 @@
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Plays every pairing of a set of robot programs on every one of a set of fuel
+ * layouts, without the GUI, and prints a table of the results. Each program
+ * plays every other one as both the red and the blue robot. The matches are
+ * played in parallel, each in its own World whose robots run in lock step and
+ * whose fuel comes from its own seeded Random, so the same arguments give the
+ * same table.
+ *
+ * The exception is a robot that takes longer than the turn timeout to choose an
+ * action, which forfeits the match. That depends on how fast the machine is, so
+ * the number of forfeits is printed with the table. With -timeout 0 robots are
+ * never timed out, and the table is always the same, but a robot stuck in a
+ * loop that never acts stops the tournament.
+ *
+ * Usage: java Tournament [-seed n] [-threads n] [-ticks n] [-timeout ms] [-log dir] program... -fuel layout...
+ *
+ * With -log, the GameLog of every match is saved in dir, to be played back by
+ * GameReplay.
+ */
+public class Tournament {
+
+    /**
+     * How a match ended. The winner is 1 (red), 2 (blue) or 0 for a draw.
+     */
+    static class Result {
+        final int winner;
+        final int ticks;
+        final int redFuel, blueFuel;
+        // whether the loser took too long to choose an action
+        final boolean forfeit;
+
+        Result(int winner, int ticks, int redFuel, int blueFuel, boolean forfeit) {
+            this.winner = winner;
+            this.ticks = ticks;
+            this.redFuel = redFuel;
+            this.blueFuel = blueFuel;
+            this.forfeit = forfeit;
+        }
+    }
+
+    /**
+     * A program's results over the whole tournament.
+     */
+    private static class Standing {
+        final String name;
+        int played, won, drawn, lost;
+        long fuel;
+
+        Standing(String name) {
+            this.name = name;
+        }
+
+        int points() {
+            return 3 * won + drawn;
+        }
+
+        void add(int outcome, int fuelLeft) {
+            played++;
+            fuel += fuelLeft;
+            if (outcome > 0) {
+                won++;
+            } else if (outcome < 0) {
+                lost++;
+            } else {
+                drawn++;
+            }
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        long seed = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxTicks = 1000;
+        // how long a robot may take to choose an action before it forfeits the match
+        long timeout = World.TURN_TIMEOUT;
+        File logDir = null;
+        List<File> programFiles = new ArrayList<>();
+        List<File> layoutFiles = new ArrayList<>();
+
+        List<File> files = programFiles;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "-threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "-ticks":
+                    maxTicks = Integer.parseInt(args[++i]);
+                    break;
+                case "-timeout":
+                    timeout = Long.parseLong(args[++i]);
+                    break;
+                case "-log":
+                    logDir = new File(args[++i]);
+                    logDir.mkdirs();
+                    break;
+                case "-fuel":
+                    files = layoutFiles;
+                    break;
+                default:
+                    files.add(new File(args[i]));
+            }
+        }
+        if (programFiles.size() < 2 || layoutFiles.isEmpty()) {
+            System.out.println("Usage: java Tournament [-seed n] [-threads n] [-ticks n] [-timeout ms] [-log dir] program... -fuel layout...");
+            return;
+        }
+
+        // each program is parsed and compiled once, and shared by all its matches
+        RoboGame.debugDisplay = false;
+        List<RobotProgramNode> programs = new ArrayList<>();
+        for (File file : programFiles) {
+            RobotProgramNode program = Parser.parseFile(file);
+            if (program == null) {
+                System.out.println("Couldn't parse " + file);
+                return;
+            }
+            programs.add(BytecodeCompiler.compile(program));
+        }
+        List<List<Point>> layouts = new ArrayList<>();
+        for (File file : layoutFiles) {
+            layouts.add(World.readFuel(file));
+        }
+
+        // the seeds are drawn in a fixed order before any match starts
+        Random seeds = new Random(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<int[]> pairings = new ArrayList<>();
+        List<Future<Result>> results = new ArrayList<>();
+        long start = System.nanoTime();
+
+        for (int red = 0; red < programs.size(); red++) {
+            for (int blue = 0; blue < programs.size(); blue++) {
+                if (red == blue) {
+                    continue;
+                }
+                for (int layout = 0; layout < layouts.size(); layout++) {
+                    final RobotProgramNode redProgram = programs.get(red);
+                    final RobotProgramNode blueProgram = programs.get(blue);
+                    final List<Point> fuel = layouts.get(layout);
+                    final long matchSeed = seeds.nextLong();
+                    final int ticks = maxTicks;
+                    final long turnTimeout = timeout;
+                    final File logFile = logDir == null ? null
+                            : new File(logDir, (red + 1) + "-" + (blue + 1) + "-" + (layout + 1) + ".log");
+
+                    pairings.add(new int[] { red, blue, layout });
+                    results.add(pool.submit(new Callable<Result>() {
+                        @Override
+                        public Result call() throws InterruptedException, IOException {
+                            return play(redProgram, blueProgram, fuel, matchSeed, ticks, turnTimeout, logFile);
+                        }
+                    }));
+                }
+            }
+        }
+
+        List<Standing> standings = new ArrayList<>();
+        for (File file : programFiles) {
+            standings.add(new Standing(file.getName()));
+        }
+        int forfeits = 0;
+        for (int m = 0; m < results.size(); m++) {
+            Result result = results.get(m).get();
+            if (result.forfeit) {
+                forfeits++;
+            }
+            int[] pairing = pairings.get(m);
+            int outcome = result.winner == 1 ? 1 : result.winner == 2 ? -1 : 0;
+            standings.get(pairing[0]).add(outcome, result.redFuel);
+            standings.get(pairing[1]).add(-outcome, result.blueFuel);
+        }
+        pool.shutdown();
+        long time = System.nanoTime() - start;
+
+        Collections.sort(standings, new Comparator<Standing>() {
+            @Override
+            public int compare(Standing s1, Standing s2) {
+                return s2.points() - s1.points();
+            }
+        });
+
+        System.out.printf("%d matches on %d threads in %.2f s, %d forfeited by timeout%n", results.size(), threads,
+                time / 1e9, forfeits);
+        System.out.printf("%-24s %6s %4s %5s %4s %6s %9s%n", "program", "played", "won", "drawn", "lost", "points", "avg fuel");
+        for (Standing s : standings) {
+            System.out.printf("%-24s %6d %4d %5d %4d %6d %9.1f%n", s.name, s.played, s.won, s.drawn, s.lost,
+                    s.points(), (double) s.fuel / s.played);
+        }
+    }
+
+    /**
+     * Plays one match. A robot wins when the other one runs out of fuel, or
+     * takes longer than timeoutMillis to choose an action, unless it's 0. If
+     * neither has happened after maxTicks ticks, the robot with more fuel wins.
+     * The match's log is saved to logFile, unless it's null.
+     */
+    static Result play(RobotProgramNode red, RobotProgramNode blue, List<Point> fuel, long seed, int maxTicks,
+            long timeoutMillis, File logFile) throws InterruptedException, IOException {
+        World world = new World(seed);
+        world.getAvailableFuel().addAll(fuel);
+        Robot robot1 = world.getRobot(1);
+        Robot robot2 = world.getRobot(2);
+        robot1.setProgram(red);
+        robot2.setProgram(blue);
+        // the robots would print their state after every action
+        robot1.setQuiet(true);
+        robot2.setQuiet(true);
+        world.start();
+
+        try {
+            int tick = 0;
+            while (tick < maxTicks) {
+                if (!world.step(timeoutMillis)) {
+                    int loser = world.getScheduler().getTurn();
+                    return new Result(3 - loser, tick, robot1.getFuel(), robot2.getFuel(), true);
+                }
+                tick++;
+
+                boolean dead1 = robot1.isDead();
+                boolean dead2 = robot2.isDead();
+                if (dead1 || dead2) {
+                    int winner = dead1 && dead2 ? 0 : dead1 ? 2 : 1;
+                    return new Result(winner, tick, robot1.getFuel(), robot2.getFuel(), false);
+                }
+            }
+
+            int fuel1 = robot1.getFuel();
+            int fuel2 = robot2.getFuel();
+            return new Result(fuel1 > fuel2 ? 1 : fuel2 > fuel1 ? 2 : 0, tick, fuel1, fuel2, false);
+        } finally {
+            world.reset();
+            if (logFile != null) {
+                world.getLog().writeTo(logFile);
+            }
+        }
+    }
+}
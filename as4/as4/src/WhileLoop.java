@@ -0,0 +1,21 @@
+class WhileLoop implements RobotProgramNode {
+    Condition condition;
+    BLOCK block;
+
+    WhileLoop(Condition condition, BLOCK block) {
+        this.condition = condition;
+        this.block = block;
+    }
+
+    @Override
+    public void execute(Robot robot) {
+        while (!robot.isDead() && condition.isTrue(robot)) {
+            block.execute(robot);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "While" + condition.toString() + block.toString() + "\n";
+    }
+}
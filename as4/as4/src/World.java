@@ -4,29 +4,43 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class World {
 
 	public static final int SIZE = 12;
+	// how long a robot may take to choose an action before it forfeits the game
+	public static final long TURN_TIMEOUT = 2000;
 
-	protected Set<Point> availableFuel = Collections.newSetFromMap(new ConcurrentHashMap<Point, Boolean>());
+	protected FuelGrid availableFuel = new FuelGrid();
 	private Random rand = new Random();
 	protected Robot[] robots;
+	// runs the robots in lock step, the GUI's timer or step advances it a tick at a time
+	private TickScheduler scheduler = new TickScheduler(2);
+	// records every tick of the game
+	private GameLog log = new GameLog();
 
 	public World() {
 		robots = new Robot[] { null, new Robot(this, 0, 0, "red", false), new Robot(this, SIZE - 1, SIZE - 1, "blue", false) };
 	}
 
+	/**
+	 * Makes a world where fuel appears in the same places every time for the
+	 * same seed, for playing games without the GUI.
+	 */
+	public World(long seed) {
+		this();
+		rand = new Random(seed);
+	}
+
 	/**
 	 * This world can no longer be used after this call.
 	 */
 	public void reset() {
+		scheduler.stop();
 		availableFuel.clear();
 		for (int i = 1; i <= 2; i++) {
 			robots[i].updatePending();
@@ -38,6 +52,11 @@ public class World {
 		return availableFuel;
 	}
 
+	/** The barrels as a grid, which the robots copy every tick */
+	FuelGrid getFuelGrid() {
+		return availableFuel;
+	}
+
 	public void updateWorld() {
 		addFuel(false);
 		for (int i = 1; i <= 2; i++) {
@@ -50,7 +69,7 @@ public class World {
 		if (prog != null) {
 			System.out.println("Robot " + id + " now has program: ");
 			System.out.println(prog);
-			robots[id].setProgram(prog);
+			robots[id].setProgram(BytecodeCompiler.compile(prog));
 		}
 	}
 
@@ -60,26 +79,78 @@ public class World {
 			addFuel(true);
 			addFuel(true);
 		}
-		new Thread(new Runnable() {
-			@Override
-			public void run() {
-				try {
-					robots[1].run();
-				} catch (RobotInterruptedException e) {
-				}
-				robots[1].setFinished(true);
-			}
-		}).start();
-		new Thread(new Runnable() {
-			@Override
-			public void run() {
-				try {
-					robots[2].run();
-				} catch (RobotInterruptedException e) {
+		log.record(robots[1], robots[2], availableFuel);
+		for (int i = 1; i <= 2; i++) {
+			final int id = i;
+			Thread thread = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					try {
+						scheduler.awaitTurn(id);
+						robots[id].run();
+					} catch (RobotInterruptedException e) {
+					}
+					robots[id].setFinished(true);
+					scheduler.finish(id);
 				}
-				robots[2].setFinished(true);
-			}
-		}).start();
+			}, "robot " + id);
+			// a robot stuck in a loop that never calls it shouldn't keep the program running
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Waits for both robots to choose their actions, then advances the world a
+	 * tick. This runs the game as fast as the robots can choose, with no GUI.
+	 * Returns false without advancing if a robot takes longer than the timeout
+	 * to choose. A timeout of 0 waits for as long as it takes.
+	 */
+	public boolean step(long timeoutMillis) throws InterruptedException {
+		if (!scheduler.awaitReady(timeoutMillis))
+			return false;
+		advance();
+		return true;
+	}
+
+	/**
+	 * Advances the world a tick if both robots have chosen their actions, without
+	 * waiting. Used by the GUI's timer, which keeps the game at its own pace.
+	 */
+	public boolean tryStep() {
+		if (!scheduler.isReady())
+			return false;
+		advance();
+		return true;
+	}
+
+	private void advance() {
+		// fuel the robots take from each other is worked out once both have used
+		// their own, so it doesn't depend on which one chose its action first
+		int taken1 = robots[1].siphonAmount();
+		int taken2 = robots[2].siphonAmount();
+		robots[1].exchangeFuel(taken1, taken2);
+		robots[2].exchangeFuel(taken2, taken1);
+		updateWorld();
+		for (int i = 1; i <= 2; i++) {
+			robots[i].checkFuel();
+		}
+		log.record(robots[1], robots[2], availableFuel);
+		scheduler.nextTick();
+	}
+
+	/** Returns the log of the game so far, which GameReplay can play back */
+	GameLog getLog() {
+		return log;
+	}
+
+	TickScheduler getScheduler() {
+		return scheduler;
+	}
+
+	/** Called by a robot once it has chosen its action, parks it until the next tick */
+	void endTurn(Robot robot) {
+		scheduler.endTurn(robot == robots[1] ? 1 : 2);
 	}
 
 	public Robot getRobot(int id) {
@@ -98,6 +169,29 @@ public class World {
 		return null;
 	}
 
+	/**
+	 * Reads a fuel placement file, which has the x and y of a barrel on each line.
+	 * Barrels outside the world can't be stored in its FuelGrid, so they're left
+	 * out, with a message on System.err. They used to be kept, so a layout with
+	 * one now plays differently: numBarrels and the barrel sensors don't count it.
+	 */
+	public static List<Point> readFuel(File file) throws IOException {
+		List<Point> fuel = new ArrayList<Point>();
+		int lineNumber = 0;
+		for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+			lineNumber++;
+			String[] coords = line.split("\\s+");
+			int x = Integer.parseInt(coords[0]);
+			int y = Integer.parseInt(coords[1]);
+			if (x < 0 || x >= SIZE || y < 0 || y >= SIZE) {
+				System.err.println(file + " line " + lineNumber + ": barrel (" + x + "," + y + ") is outside the world, skipped");
+				continue;
+			}
+			fuel.add(new Point(x, y));
+		}
+		return fuel;
+	}
+
 	private void addFuel(boolean definitely) {
 		if (definitely || rand.nextDouble() < 0.2) {
 			int x = rand.nextInt(12);
@@ -126,16 +220,13 @@ public class World {
 			
 			// load the program.
 			RobotProgramNode prog = Parser.parseFile(new File(args[0]));
+			if (prog != null) {
+				prog = BytecodeCompiler.compile(prog);
+			}
 			rgp.robots[1].setProgram(prog);
 			
 			// load fuel placement from file.
-			List<String> fuel = Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8);
-			for (String line : fuel) {
-				String[] coords = line.split("\\s+");
-				int x = Integer.parseInt(coords[0]);
-				int y = Integer.parseInt(coords[1]);
-				rgp.availableFuel.add(new Point(x, y));
-			}
+			rgp.availableFuel.addAll(readFuel(new File(args[1])));
 			
 			// run the robot.
 			rgp.robots[1].run();
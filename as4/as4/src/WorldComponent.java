@@ -95,6 +95,8 @@ public class WorldComponent extends JComponent {
 	}
 
 	private class AnimationTask extends TimerTask {
+		// when the animation started holding for the robots, or 0 if it isn't
+		private long holdingSince = 0;
 
 		public AnimationTask() {
 			frame = 0;
@@ -113,10 +115,24 @@ public class WorldComponent extends JComponent {
 				return;
 			}
 
-			// logic tick
-			frame++;
-			if (frame % WORLD_UPDATE_DELAY == 0)
-				world.updateWorld();
+			// logic tick, the animation holds on its last frame until both robots
+			// have chosen their next actions
+			if ((frame + 1) % WORLD_UPDATE_DELAY != 0 || world.tryStep()) {
+				frame++;
+				holdingSince = 0;
+			} else if (holdingSince == 0) {
+				holdingSince = System.currentTimeMillis();
+			} else if (System.currentTimeMillis() - holdingSince > World.TURN_TIMEOUT) {
+				// a robot stuck in a loop that never acts would hold the game forever
+				int stuck = world.getScheduler().getTurn();
+				if (stuck != 0) {
+					timer.cancel();
+					timer = null;
+					String msg = stuck == 1 ? "Robot 1 (red)" : "Robot 2 (blue)";
+					JOptionPane.showMessageDialog(null, msg + " took too long to choose an action, and forfeits!");
+					return;
+				}
+			}
 			repaint();
 		}
 	}
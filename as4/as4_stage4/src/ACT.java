@@ -0,0 +1,77 @@
+class ACT implements RobotProgramNode {
+    public enum ACTs {
+        move,
+        turnL,
+        turnR,
+        turnAround,
+        shieldOn,
+        shieldOff,
+        takeFuel,
+        wait
+    }
+
+    ACTs act;
+    EXP exp;
+    int nRuns = 1;
+
+    public ACT(ACTs act) {
+        this.act = act;
+    }
+
+    public ACT(ACTs act, EXP exp) {
+        this.act = act;
+        this.exp = exp;
+    }
+
+    @Override
+    public void execute(Robot robot) {
+        robot.steps++;
+        switch (act) {
+            case move:
+                if (exp != null) {
+                    nRuns = exp.getEXP(robot);
+                }
+                for (int i = 0; i < nRuns; i++) {
+                    robot.move();
+                }
+                break;
+            case turnL:
+                robot.turnLeft();
+                break;
+            case turnR:
+                robot.turnRight();
+                break;
+            case turnAround:
+                robot.turnAround();
+                break;
+            case wait:
+                if (exp != null) {
+                    nRuns = exp.getEXP(robot);
+                }
+                for (int i = 0; i < nRuns; i++) {
+                    robot.idleWait();
+                }
+                break;
+            case shieldOn:
+                robot.setShield(true);
+                break;
+            case shieldOff:
+                robot.setShield(false);
+                break;
+            case takeFuel:
+                robot.takeFuel();
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        String s = act.toString();
+
+        if (nRuns > 1) {
+            s += "(" + nRuns + ")";
+        }
+
+        return s;
+    }
+}
@@ -0,0 +1,25 @@
+import java.util.*;
+
+class DeclareVars implements RobotProgramNode {
+    HashSet<String> varList = new HashSet<>();
+    int[] slots;
+
+    @Override
+    public void execute(Robot robot) {
+        robot.steps++;
+        for (int slot : slots) {
+            robot.setVariable(slot, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("vars ");
+
+        for (String varName : varList) {
+            s.append(varName).append(", ");
+        }
+
+        return s.toString().substring(0, s.length() - 2);
+    }
+}
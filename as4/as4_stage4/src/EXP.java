@@ -0,0 +1,68 @@
+class EXP {
+    SEN sen;
+    int num = (int) Double.POSITIVE_INFINITY;
+    OP op;
+    String varName;
+    int slot;
+    AssignVar var;
+
+    public EXP(String varName, int slot) {
+        this.varName = varName;
+        this.slot = slot;
+    }
+
+    public EXP(AssignVar var) {
+        this.var = var;
+    }
+
+    public EXP(SEN sen) {
+        this.sen = sen;
+    }
+
+    public EXP(int num) {
+        this.num = num;
+    }
+
+    public EXP(OP op) {
+        this.op = op;
+    }
+
+    public int getEXP(Robot robot) {
+        robot.steps++;
+        if (sen != null) {
+            return sen.getSEN(robot);
+        } else if (var != null) {
+            var.execute(robot);
+            return robot.getVariable(var.slot);
+        } else if (varName != null) {
+            return robot.getVariable(slot);
+        } else if (op != null) {
+            System.out.println(op);
+            System.out.println(op.result(robot));
+            return op.result(robot);
+        } else if (num < (int) Double.POSITIVE_INFINITY) {
+            return num;
+        }
+
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        String s = "";
+
+        if (sen != null) {
+            s = sen.toString();
+        } else if (op != null) {
+            s = op.toString();
+        } else if (var != null) {
+            s += var;
+        } else if (varName != null) {
+            return varName;
+        } else if (num < Integer.MAX_VALUE) {
+            s = Integer.toString(num);
+        }
+
+        return s;
+    }
+}
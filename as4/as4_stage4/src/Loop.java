@@ -0,0 +1,20 @@
+class Loop implements RobotProgramNode {
+    BLOCK block;
+
+    public Loop(BLOCK block) {
+        this.block = block;
+    }
+
+    @Override
+    public void execute(Robot robot) {
+        robot.steps++;
+        while (!robot.isDead()) {
+            block.execute(robot);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "loop " + block.toString();
+    }
+}
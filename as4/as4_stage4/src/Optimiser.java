@@ -0,0 +1,624 @@
+import java.awt.Point;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An optimisation pass over a program parsed by ParserS4, which is run before
+ * the program is executed. It
+ *
+ * - folds expressions and conditions whose value is known, such as add(3, 4),
+ *   mul($x, 1) or and(gt(fuelLeft, 0), eq(1, 1)),
+ * - removes if, elif and else blocks that can never run, while loops that never
+ *   run, and moves and waits that are repeated 0 times,
+ * - reads wallDist once before a loop that never moves or turns the robot, but
+ *   always acts, instead of every time around the loop.
+ *
+ * wallDist is the only sensor it is safe to hoist: it only depends on the
+ * robot's own position and direction, which only change when it moves or turns,
+ * while every other sensor can change on any tick of the world. Expressions are
+ * only dropped when they are pure, that is they can't divide by zero or ask for
+ * a barrel that doesn't exist, so the optimised program makes the same actions
+ * as the original. It doesn't print the sub expressions it folds, though.
+ */
+class Optimiser {
+
+    // the name of the variable wallDist is hoisted into, which can't be a program's variable
+    private static final String WALL_DIST = "wallDist";
+
+    private final ArrayList<String> variables;
+    private int wallDistSlot = -1;
+
+    private Optimiser(String[] variables) {
+        this.variables = new ArrayList<>(Arrays.asList(variables));
+    }
+
+    /**
+     * Optimises a whole program, as returned by the parser, in place, and
+     * returns it.
+     */
+    static RobotProgramNode optimise(RobotProgramNode program) {
+        if (!(program instanceof RobotInstructions)) {
+            throw new IllegalArgumentException("only whole programs can be optimised");
+        }
+
+        RobotInstructions instructions = (RobotInstructions) program;
+        Optimiser optimiser = new Optimiser(instructions.variables);
+        ArrayList<STMT> stmts = optimiser.optimiseStatements(instructions.instructions, false);
+        optimiser.hoist(stmts);
+        instructions.instructions = new ArrayList<RobotProgramNode>(stmts);
+        instructions.variables = optimiser.variables.toArray(new String[0]);
+
+        return instructions;
+    }
+
+    // statements, each returns what replaces the statement, or null if it can be removed
+
+    /**
+     * Optimises a list of STMTs. In a block, the statements of a block that
+     * replaced an if statement are put in its place, since the block checks
+     * whether the robot is dead before each of them anyway.
+     */
+    private ArrayList<STMT> optimiseStatements(List<? extends RobotProgramNode> stmts, boolean inBlock) {
+        ArrayList<STMT> optimised = new ArrayList<>();
+
+        for (RobotProgramNode node : stmts) {
+            STMT stmt = (STMT) optimiseNode(node);
+
+            if (stmt == null) {
+                continue;
+            } else if (inBlock && stmt.child instanceof BLOCK) {
+                optimised.addAll(((BLOCK) stmt.child).stmts);
+            } else {
+                optimised.add(stmt);
+            }
+        }
+
+        return optimised;
+    }
+
+    private RobotProgramNode optimiseNode(RobotProgramNode node) {
+        if (node instanceof STMT) {
+            STMT stmt = (STMT) node;
+            stmt.child = optimiseNode(stmt.child);
+            return stmt.child == null ? null : stmt;
+        } else if (node instanceof BLOCK) {
+            return optimiseBlock((BLOCK) node);
+        } else if (node instanceof ACT) {
+            return optimiseACT((ACT) node);
+        } else if (node instanceof Loop) {
+            Loop loop = (Loop) node;
+            loop.block = optimiseBlock(loop.block);
+            return loop;
+        } else if (node instanceof WhileLoop) {
+            return optimiseWhile((WhileLoop) node);
+        } else if (node instanceof IfStatement) {
+            return optimiseIf((IfStatement) node);
+        } else if (node instanceof AssignVar) {
+            return optimiseAssign((AssignVar) node);
+        }
+
+        return node;
+    }
+
+    private BLOCK optimiseBlock(BLOCK block) {
+        block.stmts = optimiseStatements(block.stmts, true);
+        return block;
+    }
+
+    private RobotProgramNode optimiseACT(ACT act) {
+        if (act.exp == null) {
+            return act;
+        }
+
+        act.exp = fold(act.exp);
+        if (isConstant(act.exp) && value(act.exp) <= 0) {
+            return null;
+        }
+
+        return act;
+    }
+
+    private RobotProgramNode optimiseWhile(WhileLoop loop) {
+        loop.condition = fold(loop.condition);
+        loop.block = optimiseBlock(loop.block);
+
+        if (loop.condition.constant && !loop.condition.value) {
+            return null;
+        }
+
+        return loop;
+    }
+
+    /**
+     * An if statement runs its block when its condition is true, and then its
+     * else block if the condition has become false. Otherwise it runs the block
+     * of the first elif whose condition is true, or the else block if there
+     * isn't one. So an always true condition leaves only the block, an always
+     * false one can be skipped, and no elif after an always true one is ever
+     * checked.
+     */
+    private RobotProgramNode optimiseIf(IfStatement statement) {
+        statement.condition = fold(statement.condition);
+        statement.block = optimiseBlock(statement.block);
+
+        ArrayList<IfStatement> elseIfs = new ArrayList<>();
+        for (IfStatement elseIf : statement.elseIfs) {
+            elseIf.condition = fold(elseIf.condition);
+            elseIf.block = optimiseBlock(elseIf.block);
+
+            if (elseIf.condition.constant && !elseIf.condition.value) {
+                continue;
+            }
+            elseIfs.add(elseIf);
+            if (elseIf.condition.constant) {
+                break;
+            }
+        }
+        statement.elseIfs = elseIfs;
+
+        if (statement.elseStatement != null) {
+            statement.elseStatement.block = optimiseBlock(statement.elseStatement.block);
+        }
+
+        if (!statement.condition.constant) {
+            return statement;
+        } else if (statement.condition.value) {
+            return statement.block;
+        } else if (elseIfs.isEmpty()) {
+            return statement.elseStatement == null ? null : statement.elseStatement.block;
+        } else if (elseIfs.get(0).condition.constant) {
+            return elseIfs.get(0).block;
+        }
+
+        // the elifs still need checking, but the block never runs
+        statement.block = new BLOCK(new ArrayList<STMT>());
+        return statement;
+    }
+
+    private RobotProgramNode optimiseAssign(AssignVar assign) {
+        if (assign.exp != null) {
+            assign.exp = fold(assign.exp);
+        } else if (assign.sen != null && isPure(assign.sen)) {
+            // a sensor on its own is read, but 0 is assigned
+            assign.sen = null;
+        }
+
+        return assign;
+    }
+
+    // conditions
+
+    private Condition fold(Condition condition) {
+        if (condition.constant) {
+            return condition;
+        } else if (condition.firstCondition != null && condition.secondCondition != null) {
+            Condition first = fold(condition.firstCondition);
+            Condition second = fold(condition.secondCondition);
+            condition.firstCondition = first;
+            condition.secondCondition = second;
+            // and is false if either is false, or is true if either is true
+            boolean decides = condition.operator == Condition.OPERATOR.or;
+
+            if (first.constant) {
+                return first.value == decides ? first : second;
+            } else if (second.constant) {
+                if (second.value != decides) {
+                    return first;
+                } else if (isPure(first)) {
+                    return second;
+                }
+            }
+        } else if (condition.relop != null) {
+            if (condition.sen != null) {
+                fold(condition.sen);
+            }
+            if (condition.sen2 != null) {
+                fold(condition.sen2);
+            }
+            if (condition.exp != null) {
+                condition.exp = fold(condition.exp);
+            }
+            if (condition.exp2 != null) {
+                condition.exp2 = fold(condition.exp2);
+            }
+
+            if (condition.sen == null && condition.sen2 == null && isConstant(condition.exp) && isConstant(condition.exp2)) {
+                int a = value(condition.exp);
+                int b = value(condition.exp2);
+                switch (condition.relop.getRelop()) {
+                    case gt:
+                        return new Condition(a > b);
+                    case lt:
+                        return new Condition(a < b);
+                    case eq:
+                        return new Condition(a == b);
+                }
+            }
+        } else if (condition.firstCondition != null) {
+            Condition inner = fold(condition.firstCondition);
+            condition.firstCondition = inner;
+
+            if (inner.constant) {
+                return new Condition(condition.operator == Condition.OPERATOR.not ? !inner.value : inner.value);
+            }
+        }
+
+        return condition;
+    }
+
+    // expressions
+
+    private EXP fold(EXP exp) {
+        if (exp.sen != null) {
+            fold(exp.sen);
+        } else if (exp.op != null) {
+            OP op = exp.op;
+            op.exp1 = fold(op.exp1);
+            op.exp2 = fold(op.exp2);
+            boolean constant1 = isConstant(op.exp1);
+            boolean constant2 = isConstant(op.exp2);
+            int a = constant1 ? value(op.exp1) : 0;
+            int b = constant2 ? value(op.exp2) : 0;
+
+            if (constant1 && constant2 && !(op.operation == OP.OPs.div && b == 0)) {
+                switch (op.operation) {
+                    case add:
+                        return constant(a + b, exp);
+                    case sub:
+                        return constant(a - b, exp);
+                    case mul:
+                        return constant(a * b, exp);
+                    case div:
+                        return constant(a / b, exp);
+                }
+            }
+
+            // adding 0, multiplying or dividing by 1, and multiplying a pure expression by 0
+            switch (op.operation) {
+                case add:
+                    if (constant1 && a == 0) {
+                        return op.exp2;
+                    } else if (constant2 && b == 0) {
+                        return op.exp1;
+                    }
+                    break;
+                case sub:
+                    if (constant2 && b == 0) {
+                        return op.exp1;
+                    }
+                    break;
+                case mul:
+                    if (constant1 && a == 1) {
+                        return op.exp2;
+                    } else if (constant2 && b == 1) {
+                        return op.exp1;
+                    } else if ((constant1 && a == 0 && isPure(op.exp2)) || (constant2 && b == 0 && isPure(op.exp1))) {
+                        return new EXP(0);
+                    }
+                    break;
+                case div:
+                    if (constant2 && b == 1) {
+                        return op.exp1;
+                    }
+                    break;
+            }
+        }
+
+        return exp;
+    }
+
+    private void fold(SEN sen) {
+        if (sen.n != null) {
+            sen.n = fold(sen.n);
+        }
+    }
+
+    /**
+     * Returns an expression for a folded value, or the original expression if
+     * the value can't be written as a number.
+     */
+    private static EXP constant(int value, EXP original) {
+        // the parser's numbers use Integer.MAX_VALUE for no number, which is 0
+        return value == Integer.MAX_VALUE ? original : new EXP(value);
+    }
+
+    private static boolean isConstant(EXP exp) {
+        return exp != null && exp.sen == null && exp.op == null && exp.var == null && exp.varName == null;
+    }
+
+    private static int value(EXP exp) {
+        return exp.num < Integer.MAX_VALUE ? exp.num : 0;
+    }
+
+    /**
+     * Returns whether evaluating an expression can't fail, so it can be left out.
+     */
+    private static boolean isPure(EXP exp) {
+        if (exp.sen != null) {
+            return isPure(exp.sen);
+        } else if (exp.op != null) {
+            boolean divides = exp.op.operation == OP.OPs.div && !(isConstant(exp.op.exp2) && value(exp.op.exp2) != 0);
+            return !divides && isPure(exp.op.exp1) && isPure(exp.op.exp2);
+        }
+        return exp.var == null;
+    }
+
+    private static boolean isPure(SEN sen) {
+        // asking for a barrel by number fails if the number is negative
+        return sen.n == null;
+    }
+
+    private static boolean isPure(Condition condition) {
+        if (condition.constant) {
+            return true;
+        } else if (condition.firstCondition != null) {
+            return isPure(condition.firstCondition)
+                    && (condition.secondCondition == null || isPure(condition.secondCondition));
+        }
+        return (condition.sen == null || isPure(condition.sen)) && (condition.sen2 == null || isPure(condition.sen2))
+                && (condition.exp == null || isPure(condition.exp)) && (condition.exp2 == null || isPure(condition.exp2));
+    }
+
+    // hoisting wallDist out of loops
+
+    /**
+     * Hoists wallDist out of every outermost loop in a list of statements that
+     * can, putting an assignment to the hoisted variable just before the loop.
+     */
+    private void hoist(ArrayList<STMT> stmts) {
+        for (int i = 0; i < stmts.size(); i++) {
+            RobotProgramNode node = stmts.get(i).child;
+
+            if ((node instanceof Loop || node instanceof WhileLoop) && !moves(node) && alwaysActs(blocks(node).get(0))
+                    && readsWallDist(node)) {
+                if (wallDistSlot < 0) {
+                    wallDistSlot = variables.size();
+                    variables.add(WALL_DIST);
+                }
+                replaceWallDist(node);
+                AssignVar read = new AssignVar(WALL_DIST, wallDistSlot, new EXP(new SEN(SEN.SENs.WALL_DIST)));
+                stmts.add(i, new STMT(read));
+                i++;
+            } else {
+                for (BLOCK block : blocks(node)) {
+                    hoist(block.stmts);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the blocks directly inside a node.
+     */
+    private static ArrayList<BLOCK> blocks(RobotProgramNode node) {
+        ArrayList<BLOCK> blocks = new ArrayList<>();
+
+        if (node instanceof STMT) {
+            return blocks(((STMT) node).child);
+        } else if (node instanceof BLOCK) {
+            blocks.add((BLOCK) node);
+        } else if (node instanceof Loop) {
+            blocks.add(((Loop) node).block);
+        } else if (node instanceof WhileLoop) {
+            blocks.add(((WhileLoop) node).block);
+        } else if (node instanceof IfStatement) {
+            IfStatement statement = (IfStatement) node;
+            blocks.add(statement.block);
+            for (IfStatement elseIf : statement.elseIfs) {
+                blocks.add(elseIf.block);
+            }
+            if (statement.elseStatement != null) {
+                blocks.add(statement.elseStatement.block);
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Returns whether a node can move or turn the robot.
+     */
+    private static boolean moves(RobotProgramNode node) {
+        if (node instanceof STMT) {
+            return moves(((STMT) node).child);
+        } else if (node instanceof ACT) {
+            ACT.ACTs act = ((ACT) node).act;
+            return act == ACT.ACTs.move || act == ACT.ACTs.turnL || act == ACT.ACTs.turnR || act == ACT.ACTs.turnAround;
+        }
+
+        for (BLOCK block : blocks(node)) {
+            for (STMT stmt : block.stmts) {
+                if (moves(stmt)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether every run of a block makes an action. Actions are where a
+     * running program is cancelled when the game is reset, and in a loop that
+     * doesn't always act, reading wallDist is the only place left, so it can't
+     * be hoisted out.
+     */
+    private static boolean alwaysActs(BLOCK block) {
+        for (STMT stmt : block.stmts) {
+            // the actions left with an expression repeat a constant number of times
+            if (stmt.child instanceof ACT && (((ACT) stmt.child).exp == null || isConstant(((ACT) stmt.child).exp))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean readsWallDist(RobotProgramNode node) {
+        return replaceWallDist(node, false);
+    }
+
+    private void replaceWallDist(RobotProgramNode node) {
+        replaceWallDist(node, true);
+    }
+
+    /**
+     * Looks for wallDist in a node, and if replace is true, replaces it with the
+     * hoisted variable. Returns whether there was one.
+     */
+    private boolean replaceWallDist(RobotProgramNode node, boolean replace) {
+        boolean found = false;
+
+        if (node instanceof STMT) {
+            return replaceWallDist(((STMT) node).child, replace);
+        } else if (node instanceof ACT) {
+            return ((ACT) node).exp != null && replaceWallDist(((ACT) node).exp, replace);
+        } else if (node instanceof AssignVar) {
+            return ((AssignVar) node).exp != null && replaceWallDist(((AssignVar) node).exp, replace);
+        } else if (node instanceof WhileLoop) {
+            found = replaceWallDist(((WhileLoop) node).condition, replace);
+        } else if (node instanceof IfStatement) {
+            IfStatement statement = (IfStatement) node;
+            found = replaceWallDist(statement.condition, replace);
+            for (IfStatement elseIf : statement.elseIfs) {
+                found |= replaceWallDist(elseIf.condition, replace);
+            }
+        }
+
+        for (BLOCK block : blocks(node)) {
+            for (STMT stmt : block.stmts) {
+                found |= replaceWallDist(stmt, replace);
+            }
+        }
+        return found;
+    }
+
+    private boolean replaceWallDist(Condition condition, boolean replace) {
+        if (condition.constant) {
+            return false;
+        } else if (condition.firstCondition != null) {
+            return replaceWallDist(condition.firstCondition, replace)
+                    | (condition.secondCondition != null && replaceWallDist(condition.secondCondition, replace));
+        }
+
+        boolean found = (condition.exp != null && replaceWallDist(condition.exp, replace))
+                | (condition.exp2 != null && replaceWallDist(condition.exp2, replace))
+                | (condition.sen != null && replaceWallDist(condition.sen, replace))
+                | (condition.sen2 != null && replaceWallDist(condition.sen2, replace))
+                | isWallDist(condition.sen) | isWallDist(condition.sen2);
+
+        if (replace && (isWallDist(condition.sen) || isWallDist(condition.sen2))) {
+            // compare expressions instead, keeping the order they're evaluated in
+            if (condition.sen2 != null) {
+                condition.exp = toEXP(condition.sen);
+                condition.exp2 = toEXP(condition.sen2);
+            } else {
+                condition.exp2 = condition.exp;
+                condition.exp = toEXP(condition.sen);
+            }
+            condition.sen = null;
+            condition.sen2 = null;
+        }
+        return found;
+    }
+
+    private boolean replaceWallDist(EXP exp, boolean replace) {
+        if (exp.sen != null) {
+            if (isWallDist(exp.sen)) {
+                if (replace) {
+                    exp.sen = null;
+                    exp.varName = WALL_DIST;
+                    exp.slot = wallDistSlot;
+                }
+                return true;
+            }
+            return replaceWallDist(exp.sen, replace);
+        } else if (exp.op != null) {
+            return replaceWallDist(exp.op.exp1, replace) | replaceWallDist(exp.op.exp2, replace);
+        }
+        return false;
+    }
+
+    private boolean replaceWallDist(SEN sen, boolean replace) {
+        return sen.n != null && replaceWallDist(sen.n, replace);
+    }
+
+    private EXP toEXP(SEN sen) {
+        return isWallDist(sen) ? new EXP(WALL_DIST, wallDistSlot) : new EXP(sen);
+    }
+
+    private static boolean isWallDist(SEN sen) {
+        return sen != null && sen.sen == SEN.SENs.WALL_DIST;
+    }
+
+    /**
+     * Runs a program with and without the optimisations, the same way as
+     * RoboGamePrinter, and reports the interpreter's steps per action.
+     *
+     * Usage: java Optimiser program fuel
+     */
+    public static void main(String[] args) throws IOException {
+        RoboGame.debugDisplay = false;
+        File program = new File(args[0]);
+        ArrayList<Point> fuel = new ArrayList<>();
+        for (String line : Files.readAllLines(new File(args[1]).toPath(), StandardCharsets.UTF_8)) {
+            String[] coords = line.trim().split("\\s+");
+            fuel.add(new Point(Integer.parseInt(coords[0]), Integer.parseInt(coords[1])));
+        }
+
+        PrintStream out = System.out;
+        ByteArrayOutputStream original = new ByteArrayOutputStream();
+        ByteArrayOutputStream optimised = new ByteArrayOutputStream();
+
+        System.setOut(new PrintStream(original));
+        RobotProgramNode tree = ParserS4.parseFile(program);
+        if (tree == null) {
+            System.setOut(out);
+            System.out.println("couldn't parse " + program);
+            return;
+        }
+        Robot before = run(tree, fuel);
+        System.setOut(new PrintStream(optimised));
+        RobotProgramNode optimisedTree = optimise(ParserS4.parseFile(program));
+        Robot after = run(optimisedTree, fuel);
+        System.setOut(out);
+
+        System.out.println("optimised program:");
+        System.out.println(optimisedTree);
+        report("before", before);
+        report("after", after);
+        System.out.println("same robot states: " + states(original).equals(states(optimised)));
+    }
+
+    private static Robot run(RobotProgramNode program, ArrayList<Point> fuel) {
+        World.RoboGamePrinter world = new World.RoboGamePrinter();
+        world.availableFuel.addAll(fuel);
+        Robot robot = world.getRobot(1);
+        robot.setProgram(program);
+        robot.run();
+        return robot;
+    }
+
+    private static void report(String name, Robot robot) {
+        System.out.printf("%-7s %9d steps, %6d actions, %8.2f steps per action%n", name + ":", robot.steps,
+                robot.actions, (double) robot.steps / Math.max(1, robot.actions));
+    }
+
+    /**
+     * The state lines a run printed.
+     */
+    private static ArrayList<String> states(ByteArrayOutputStream output) {
+        ArrayList<String> states = new ArrayList<>();
+        for (String line : output.toString().split("\n")) {
+            if (line.startsWith("x=")) {
+                states.add(line);
+            }
+        }
+        return states;
+    }
+}
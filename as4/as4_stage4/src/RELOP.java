@@ -0,0 +1,17 @@
+class RELOP {
+    public enum RELOPs {
+        gt,
+        lt,
+        eq
+    }
+
+    RELOPs relop;
+
+    public RELOP(RELOPs relop) {
+        this.relop = relop;
+    }
+
+    public RELOPs getRelop() {
+        return relop;
+    }
+}
@@ -17,14 +17,22 @@ public class Robot {
     // Robot Actions
     // -------------
 
-    HashMap<String, Integer> variables = new HashMap<>();
+    // the program's variables, by the slot the parser gave them
+    int[] variables = new int[0];
 
-    public void addVariable(String name, int value) {
-        variables.put(name, value);
+    /**
+     * Gives the robot a new frame of variables, all set to 0.
+     */
+    public void newFrame(int size) {
+        variables = new int[size];
     }
 
-    public int getVariable(String name) {
-        return variables.get(name);
+    public void setVariable(int slot, int value) {
+        variables[slot] = value;
+    }
+
+    public int getVariable(int slot) {
+        return variables[slot];
     }
 
     /**
@@ -325,6 +333,9 @@ public class Robot {
 
     private enum DIRECTION {NORTH, WEST, SOUTH, EAST}
 
+    // the interpreter's steps, and the actions done, counted to measure the Optimiser
+    int steps, actions;
+
     private World world;
     private Point otherRobotPos;
     private List<Point> barrels = new ArrayList<Point>();
@@ -366,6 +377,7 @@ public class Robot {
      * Encodes the state of the robot, used for automarking.
      */
     public void readState() {
+        actions++;
         String state = "x=" + x + " y=" + y + " dir=" + dir + " fuel=" + fuel + " shield=" + shield;
         history.add(state);
         System.out.println(state);
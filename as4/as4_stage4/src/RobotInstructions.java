@@ -0,0 +1,32 @@
+import java.util.*;
+
+class RobotInstructions implements RobotProgramNode {
+    ArrayList<RobotProgramNode> instructions;
+    // the names of the variables, by slot
+    String[] variables;
+
+    public RobotInstructions(ArrayList<RobotProgramNode> instructions, String[] variables) {
+        this.instructions = instructions;
+        this.variables = variables;
+    }
+
+    @Override
+    public void execute(Robot robot) {
+        robot.steps++;
+        robot.newFrame(variables.length);
+        for (RobotProgramNode rpn : instructions) {
+            rpn.execute(robot);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder();
+
+        for (RobotProgramNode rpn : instructions) {
+            s.append(rpn.toString());
+        }
+
+        return s.toString();
+    }
+}
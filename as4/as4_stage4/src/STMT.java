@@ -0,0 +1,18 @@
+class STMT implements RobotProgramNode {
+    RobotProgramNode child;
+
+    public STMT(RobotProgramNode child) {
+        this.child = child;
+    }
+
+    @Override
+    public void execute(Robot robot) {
+        robot.steps++;
+        child.execute(robot);
+    }
+
+    @Override
+    public String toString() {
+        return child.toString();
+    }
+}
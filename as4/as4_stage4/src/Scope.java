@@ -0,0 +1,48 @@
+import java.util.*;
+
+class Scope {
+    HashSet<String> vars = new HashSet<>();
+    Scope parent;
+    // the slot of every variable in the program, in slot order, shared by all the
+    // scopes. A name has the same slot in every scope, since the robot used to keep
+    // a single variable per name
+    LinkedHashMap<String, Integer> slots;
+
+    Scope() {
+        slots = new LinkedHashMap<>();
+    }
+
+    Scope(Scope parent) {
+        this.parent = parent;
+        slots = parent.slots;
+    }
+
+    /**
+     * Returns the slot of a variable in the robot's frame, giving it the next
+     * slot the first time it's used.
+     */
+    int slotOf(String varName) {
+        Integer slot = slots.get(varName);
+        if (slot == null) {
+            slot = slots.size();
+            slots.put(varName, slot);
+        }
+        return slot;
+    }
+
+    public boolean canAccessVar(String varName) {
+        if (vars.contains(varName)) {
+            return true;
+        }
+        Scope ancestor = parent;
+        while (ancestor != null) {
+            if (ancestor.vars.contains(varName)) {
+                return true;
+            }
+
+            ancestor = ancestor.parent;
+        }
+
+        return false;
+    }
+}
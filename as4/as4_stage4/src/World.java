@@ -49,7 +49,7 @@ public class World {
 		if (prog != null) {
 			System.out.println("Robot " + id + " now has program: ");
 			System.out.println(prog);
-			robots[id].setProgram(prog);
+			robots[id].setProgram(Optimiser.optimise(prog));
 		}
 	}
 
@@ -125,7 +125,7 @@ public class World {
 			
 			// load the program.
 			RobotProgramNode prog = ParserS4.parseFile(new File(args[0]));
-			rgp.robots[1].setProgram(prog);
+			rgp.robots[1].setProgram(prog == null ? null : Optimiser.optimise(prog));
 			
 			// load fuel placement from file.
 			List<String> fuel = Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8);
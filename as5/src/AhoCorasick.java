@@ -0,0 +1,227 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Aho-Corasick search for many patterns at once, which finds every match of
+ * every pattern in one pass over the text. The patterns are built into a trie
+ * whose failure links are then folded into a dense transition table, so each
+ * char of the text costs one table lookup however many patterns there are.
+ * <p>
+ * The table has a column for each distinct char in the patterns, plus one for
+ * every other char, and a row for each node of the trie, so thousands of short
+ * patterns take a few megabytes. Like KMP, an instance is a compiled set of
+ * patterns that can search any number of texts from any number of threads.
+ */
+public class AhoCorasick {
+    private final List<String> patterns;
+
+    // the column of the table for each char, 0 for chars in no pattern
+    private final char[] columns = new char[Character.MAX_VALUE + 1];
+    private final int width;
+    // next[state * width + column] is the state after reading a char in that column
+    private final int[] next;
+    // the pattern that ends at each state, or -1
+    private final int[] pattern;
+    // the nearest state on each state's failure chain where a pattern ends, or 0
+    private final int[] outputLink;
+    // how many chars each state is from the root
+    private final int[] depth;
+
+    /**
+     * Something that is told about every match findAll finds.
+     */
+    public interface MatchListener {
+        /**
+         * Called with the index in the pattern list of the pattern that
+         * matched, and the index in the text of its first char. Matches are
+         * found in the order they end, longest first when several end at once.
+         */
+        void onMatch(int pattern, long index);
+    }
+
+    /**
+     * Compiles a list of patterns. A pattern listed more than once is only
+     * reported as the first of them.
+     */
+    public AhoCorasick(List<String> patterns) {
+        this.patterns = new ArrayList<>(patterns);
+
+        int states = 1;
+        int columns = 1;
+        for (String p : this.patterns) {
+            if (p.isEmpty()) {
+                throw new IllegalArgumentException("empty pattern");
+            }
+            states += p.length();
+            for (int i = 0; i < p.length(); i++) {
+                if (this.columns[p.charAt(i)] == 0) {
+                    this.columns[p.charAt(i)] = (char) columns++;
+                }
+            }
+        }
+        width = columns;
+
+        // build the trie, with room for every pattern to need its own states
+        int[] next = new int[states * width];
+        int[] pattern = new int[states];
+        int[] depth = new int[states];
+        Arrays.fill(pattern, -1);
+        states = 1;
+        for (int p = 0; p < this.patterns.size(); p++) {
+            String chars = this.patterns.get(p);
+            int state = 0;
+            for (int i = 0; i < chars.length(); i++) {
+                int edge = state * width + this.columns[chars.charAt(i)];
+                if (next[edge] == 0) {
+                    depth[states] = i + 1;
+                    next[edge] = states++;
+                }
+                state = next[edge];
+            }
+            if (pattern[state] == -1) {
+                pattern[state] = p;
+            }
+        }
+
+        this.next = Arrays.copyOf(next, states * width);
+        this.pattern = Arrays.copyOf(pattern, states);
+        this.depth = Arrays.copyOf(depth, states);
+        this.outputLink = new int[states];
+        link();
+    }
+
+    /**
+     * Follows the failure links breadth first, filling in every missing edge
+     * of the trie with the edge its failure state takes, and finding each
+     * state's output link.
+     */
+    private void link() {
+        int[] failure = new int[pattern.length];
+        int[] queue = new int[pattern.length];
+        int head = 0;
+        int tail = 0;
+
+        for (int column = 0; column < width; column++) {
+            if (next[column] != 0) {
+                queue[tail++] = next[column];
+            }
+        }
+
+        while (head < tail) {
+            int state = queue[head++];
+            int fail = failure[state];
+            outputLink[state] = pattern[fail] >= 0 ? fail : outputLink[fail];
+
+            for (int column = 0; column < width; column++) {
+                int edge = state * width + column;
+                if (next[edge] != 0) {
+                    failure[next[edge]] = next[fail * width + column];
+                    queue[tail++] = next[edge];
+                } else {
+                    next[edge] = next[fail * width + column];
+                }
+            }
+        }
+    }
+
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Returns the first match to end in the text, at or after from, as the
+     * index of the pattern and the index of its first char, or null if there
+     * isn't one.
+     */
+    public int[] find(CharSequence text, int from) {
+        int state = 0;
+        for (int i = Math.max(from, 0); i < text.length(); i++) {
+            state = next[state * width + columns[text.charAt(i)]];
+            int match = pattern[state] >= 0 ? state : outputLink[state];
+            if (match != 0) {
+                return new int[] { pattern[match], i - depth[match] + 1 };
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Tells the listener about every match of every pattern in the text.
+     */
+    public void findAll(CharSequence text, MatchListener listener) {
+        new Matcher(listener).feed(text);
+    }
+
+    /**
+     * Tells the listener about every match of every pattern in the text read
+     * from in, a chunk at a time. Doesn't close in.
+     */
+    public void findAll(Reader in, MatchListener listener) throws IOException {
+        Matcher matcher = new Matcher(listener);
+        char[] buffer = new char[1 << 16];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            matcher.feed(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Returns a matcher for searching a text that arrives in pieces.
+     */
+    public Matcher matcher(MatchListener listener) {
+        return new Matcher(listener);
+    }
+
+    /**
+     * Searches a text that is given to it a piece at a time, carrying its state
+     * from one piece to the next. Indexes are from the start of the first piece.
+     */
+    public class Matcher {
+        private final MatchListener listener;
+        private int state = 0;
+        private long offset = 0;
+
+        private Matcher(MatchListener listener) {
+            this.listener = listener;
+        }
+
+        public void feed(CharSequence text) {
+            for (int i = 0; i < text.length(); i++) {
+                state = next[state * width + columns[text.charAt(i)]];
+                if (pattern[state] >= 0 || outputLink[state] != 0) {
+                    report(offset + i);
+                }
+            }
+            offset += text.length();
+        }
+
+        public void feed(char[] text, int start, int length) {
+            for (int i = start; i < start + length; i++) {
+                state = next[state * width + columns[text[i]]];
+                if (pattern[state] >= 0 || outputLink[state] != 0) {
+                    report(offset + i - start);
+                }
+            }
+            offset += length;
+        }
+
+        /**
+         * Reports every pattern that ends at end.
+         */
+        private void report(long end) {
+            for (int match = pattern[state] >= 0 ? state : outputLink[state]; match != 0; match = outputLink[match]) {
+                listener.onMatch(pattern[match], end - depth[match] + 1);
+            }
+        }
+
+        /**
+         * Returns how many characters have been searched.
+         */
+        public long position() {
+            return offset;
+        }
+    }
+}
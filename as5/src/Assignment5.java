@@ -12,13 +12,13 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
@@ -30,6 +30,8 @@ import javax.swing.JTabbedPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.border.Border;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 /**
  * Handout code for assignment 5.
@@ -60,6 +62,16 @@ public class Assignment5 {
     // editor components.
     private JTextField searchField;
     private JTextArea textEditor;
+    // the last patterns searched for, compiled
+    private KMP kmp;
+    private AhoCorasick ahoCorasick;
+    // whether to search with a suffix index of the editor's text, and the index
+    // if it has been built since the text last changed
+    private JCheckBox indexMode;
+    private SuffixIndex suffixIndex;
+    // whether the search box holds several patterns separated by |, to find
+    // the first match of any of them
+    private JCheckBox multiMode;
 
     // compression components and state.
     private JComboBox<String> list;
@@ -97,31 +109,25 @@ public class Assignment5 {
 
             String algorithm = (String) list.getSelectedItem();
             if (algorithm.equals("Huffman coding")) {
-                // read in the file.
-                String text = readFile(compressionInputFile);
-
-                // run the algorithms.
-                HuffmanCoding huffman = new HuffmanCoding(text);
-                String encoded = huffman.encode(text);
-                String decoded = huffman.decode(encoded);
-
-                if (!encoded.matches("[01]*"))
-                    compressionOutput.append(
-                            "ERROR: Encoded string contains characters that are not 0 or 1. It is not a valid Huffman encoding.\n\n");
-
-                // write out the encoded text.
-                List<String> lines = Arrays.asList(encoded);
-                Files.write(compressionOutputFile.toPath(), lines, CHARSET);
-
-                // figure out file sizes. the encoded string represents bits,
-                // so we divide it by 8 to get the size in bytes.
-                compressionOutput.append("input length:  " + compressionInputFile.length() + " bytes \n");
-                compressionOutput.append("output length: " + encoded.length() / 8 + " bytes \n\n");
-
-                // check they're the same and display user output.
-                compressionOutput
-                        .append("original and decoded texts " + (text.equals(decoded) ? "" : "DO NOT ") + "match.\n");
-                compressionOutput.append(huffman.getInformation());
+                // compress and decompress the files a block at a time, so
+                // they never have to fit in memory.
+                CanonicalHuffman code = HuffmanStream.compress(compressionInputFile.toPath(),
+                        compressionOutputFile.toPath());
+                File decoded = File.createTempFile("decoded", ".txt");
+                try {
+                    HuffmanStream.decompress(compressionOutputFile.toPath(), decoded.toPath());
+
+                    compressionOutput.append("input length:  " + compressionInputFile.length() + " bytes \n");
+                    compressionOutput.append("output length: " + compressionOutputFile.length() + " bytes \n\n");
+
+                    // check they're the same and display user output.
+                    boolean same = Files.mismatch(compressionInputFile.toPath(), decoded.toPath()) == -1;
+                    compressionOutput.append("original and decoded texts " + (same ? "" : "DO NOT ") + "match.\n");
+                    compressionOutput.append("symbols: " + code.getSymbols() + "\nlongest code: "
+                            + code.getMaxLength() + " bits\n");
+                } finally {
+                    decoded.delete();
+                }
 
             } else if (algorithm.equals("Lempel Ziv")) {
                 // read in the file.
@@ -129,16 +135,15 @@ public class Assignment5 {
 
                 // run the algorithms.
                 LempelZiv lz = new LempelZiv();
-                String compressed = lz.compress(text);
-                String decompressed = lz.decompress(compressed);
+                byte[] compressed = lz.compressBinary(text);
+                String decompressed = lz.decompressBinary(compressed);
 
-                // write out the encoded text.
-                List<String> lines = Arrays.asList(compressed);
-                Files.write(compressionOutputFile.toPath(), lines, CHARSET);
+                // write out the compressed tokens.
+                Files.write(compressionOutputFile.toPath(), compressed);
 
-                // figure out file sizes, in characters this time.
-                compressionOutput.append("Input length:  " + text.length() + " characters \n");
-                compressionOutput.append("Output length: " + compressed.length() + " characters \n");
+                // figure out file sizes.
+                compressionOutput.append("Input length:  " + compressionInputFile.length() + " bytes \n");
+                compressionOutput.append("Output length: " + compressed.length + " bytes \n");
 
                 // check they're the same and display user output.
                 compressionOutput.append(
@@ -209,8 +214,11 @@ public class Assignment5 {
             @Override
             public void actionPerformed(ActionEvent e) {
                 String pattern = searchField.getText();
+                if (pattern.isEmpty()) {
+                    return;
+                }
                 String text = textEditor.getText();
-                int index = new BoyerMoore().search(text, pattern);
+                int index = new BoyerMoore(pattern).indexOf(text, 0);
 
                 if (index == -1) {
                     JOptionPane.showMessageDialog(frame, "Pattern not found.");
@@ -223,21 +231,36 @@ public class Assignment5 {
             }
         });
 
+        // searching with a suffix index builds it once, then each search only
+        // looks at the matches.
+        indexMode = new JCheckBox("Index");
+
+        // with several patterns, any of them can match. Otherwise the box is
+        // searched for as it is, | and all.
+        multiMode = new JCheckBox("Multi");
+
         // next, add in the search box on the top right.
         searchField = new JTextField(SEARCH_COLS);
         searchField.setMaximumSize(new Dimension(0, 25));
         searchField.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
                 String pattern = searchField.getText();
+                if (pattern.isEmpty()) {
+                    return;
+                }
+
+                // start after the selected match, so pressing enter again finds the next one
                 String text = textEditor.getText();
-                int index = new KMP(pattern, text).search(pattern, text);
+                int from = textEditor.getSelectionStart() < textEditor.getSelectionEnd()
+                        ? textEditor.getSelectionStart() + 1 : textEditor.getCaretPosition();
+                int[] match = multiMode.isSelected() ? findAny(pattern, text, from) : find(pattern, text, from);
 
-                if (index == -1) {
+                if (match == null) {
                     JOptionPane.showMessageDialog(frame, "Pattern not found.");
                 } else {
                     textEditor.requestFocus();
-                    textEditor.setSelectionStart(index);
-                    textEditor.setSelectionEnd(index + pattern.length());
+                    textEditor.setSelectionStart(match[0]);
+                    textEditor.setSelectionEnd(match[0] + match[1]);
                     textEditor.setSelectionColor(Color.YELLOW);
                 }
             }
@@ -257,6 +280,8 @@ public class Assignment5 {
         controls.add(load);
         controls.add(Ngrams);
         controls.add(boyerMooreBtn);
+        controls.add(indexMode);
+        controls.add(multiMode);
         controls.add(Box.createHorizontalGlue());
         controls.add(new JLabel("Search"));
         controls.add(Box.createRigidArea(new Dimension(LAYOUT_GAP, 0)));
@@ -267,6 +292,18 @@ public class Assignment5 {
         textEditor.setLineWrap(true);
         textEditor.setWrapStyleWord(true);
         textEditor.setEditable(true);
+        textEditor.getDocument().addDocumentListener(new DocumentListener() {
+            public void insertUpdate(DocumentEvent e) {
+                suffixIndex = null;
+            }
+
+            public void removeUpdate(DocumentEvent e) {
+                suffixIndex = null;
+            }
+
+            public void changedUpdate(DocumentEvent e) {
+            }
+        });
 
         File defaultFile = new File(DEFAULT_EDITOR_FILE);
         if (defaultFile.exists())
@@ -454,6 +491,59 @@ public class Assignment5 {
         frame.setVisible(true);
     }
 
+    /**
+     * Finds the first match of a pattern at or after from, wrapping around to
+     * the start of the text, and returns its index and length.
+     */
+    private int[] find(String pattern, String text, int from) {
+        if (indexMode.isSelected()) {
+            if (suffixIndex == null) {
+                suffixIndex = SuffixIndex.build(text);
+            }
+            int index = suffixIndex.indexOf(pattern, from);
+            if (index == -1) {
+                index = suffixIndex.indexOf(pattern, 0);
+            }
+            return index == -1 ? null : new int[] { index, pattern.length() };
+        }
+
+        if (kmp == null || !kmp.getPattern().equals(pattern)) {
+            kmp = new KMP(pattern);
+        }
+
+        int index = kmp.indexOf(text, from);
+        if (index == -1) {
+            index = kmp.indexOf(text, 0);
+        }
+        return index == -1 ? null : new int[] { index, pattern.length() };
+    }
+
+    /**
+     * Finds the first match to end at or after from of any of the patterns
+     * separated by |, wrapping around to the start of the text, and returns
+     * its index and length.
+     */
+    private int[] findAny(String patterns, String text, int from) {
+        List<String> terms = new ArrayList<>();
+        for (String term : patterns.split("\\|")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        if (terms.isEmpty()) {
+            return null;
+        }
+        if (ahoCorasick == null || !ahoCorasick.getPatterns().equals(terms)) {
+            ahoCorasick = new AhoCorasick(terms);
+        }
+
+        int[] match = ahoCorasick.find(text, from);
+        if (match == null) {
+            match = ahoCorasick.find(text, 0);
+        }
+        return match == null ? null : new int[] { match[1], terms.get(match[0]).length() };
+    }
+
     /**
      * A helper method for reading a file into a string.
      */
@@ -0,0 +1,99 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads bits most significant bit first, keeping at least 32 of them in a
+ * 64-bit window while there are that many left, so a decoder can peek at the
+ * next code and then skip however long it turns out to be. The bytes come from
+ * an array, or through a fixed buffer from a channel. Past the end of the bytes
+ * it reads zeros.
+ */
+class BitReader {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    // the top count bits of window are the next bits
+    private long window;
+    private int count;
+    private long read;
+
+    BitReader(byte[] bytes) {
+        this.channel = null;
+        this.buffer = ByteBuffer.wrap(bytes);
+        refill();
+    }
+
+    BitReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 8));
+        buffer.flip();
+        refill();
+    }
+
+    /**
+     * Returns the next n bits, for n from 1 to 32, without reading them.
+     */
+    int peek(int n) {
+        return (int) (window >>> (64 - n));
+    }
+
+    void skip(int n) {
+        window <<= n;
+        count -= n;
+        read += n;
+        if (count < 32) {
+            refill();
+        }
+    }
+
+    /**
+     * Returns how many bits have been read.
+     */
+    long position() {
+        return read;
+    }
+
+    /**
+     * Returns whether more bits have been read than there were.
+     */
+    boolean overrun() {
+        return count < 0;
+    }
+
+    private void refill() {
+        if (count <= 32 && buffer.remaining() >= 4) {
+            window |= (buffer.getInt() & 0xFFFFFFFFL) << (32 - count);
+            count += 32;
+        }
+        while (count <= 56) {
+            if (!buffer.hasRemaining() && !fill()) {
+                return;
+            }
+            window |= (buffer.get() & 0xFFL) << (56 - count);
+            count += 8;
+        }
+    }
+
+    /**
+     * Reads more bytes from the channel into the buffer, returning whether
+     * there were any.
+     */
+    private boolean fill() {
+        if (channel == null) {
+            return false;
+        }
+        buffer.clear();
+        try {
+            int n;
+            do {
+                n = channel.read(buffer);
+            } while (n == 0);
+            buffer.flip();
+            return n > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
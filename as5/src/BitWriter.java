@@ -0,0 +1,98 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Writes codes of up to 32 bits, most significant bit first, gathering them in
+ * a 64-bit accumulator and writing them out 32 bits at a time. The bytes go to
+ * a growing array, or through a fixed buffer to a channel.
+ */
+class BitWriter {
+    private final WritableByteChannel channel;
+    private ByteBuffer buffer;
+
+    // the low bits bits of acc haven't been written yet
+    private long acc;
+    private int bits;
+    private long written;
+
+    /**
+     * A writer that keeps everything it writes, for toByteArray.
+     */
+    BitWriter() {
+        this.channel = null;
+        this.buffer = ByteBuffer.allocate(1 << 12);
+    }
+
+    /**
+     * A writer that writes to a channel whenever its buffer fills up.
+     */
+    BitWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, 8));
+    }
+
+    void write(int code, int length) {
+        acc = (acc << length) | (code & 0xFFFFFFFFL);
+        bits += length;
+        if (bits >= 32) {
+            bits -= 32;
+            if (buffer.remaining() < 4) {
+                drain();
+            }
+            buffer.putInt((int) (acc >>> bits));
+        }
+        written += length;
+    }
+
+    /**
+     * Returns how many bits have been written.
+     */
+    long bitLength() {
+        return written;
+    }
+
+    /**
+     * Writes out the last bits, padded with zeros to a whole byte, and any
+     * buffered bytes. Nothing should be written after this.
+     */
+    void flush() {
+        while (bits > 0) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int take = Math.min(bits, 8);
+            buffer.put((byte) ((acc >>> (bits - take)) << (8 - take)));
+            bits -= take;
+        }
+        if (channel != null) {
+            drain();
+        }
+    }
+
+    /**
+     * Returns everything written, once flushed.
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    private void drain() {
+        if (channel == null) {
+            buffer = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.capacity() * 2)).position(buffer.position());
+            return;
+        }
+
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+}
@@ -1,126 +1,238 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
-
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Boyer-Moore search with the bad character and good suffix rules, and Galil's
+ * rule when finding every match. The tables only depend on the pattern, so they
+ * are built once, in the constructor, and a search looks at fewer characters of
+ * the text the longer the pattern is.
+ */
 public class BoyerMoore {
-    public int search(String text, String pattern) {
-        int i = pattern.length();
-        int j = pattern.length();
-        int[] goodSuffix = goodSuffix(pattern, text);
-        int[] badChars = badCharacter(pattern, text);
-
-        while (i < text.length()) {
-            while (pattern.charAt(j - 1) == text.charAt(i - 1)) {
-                i--;
-                j--;
-
-                if (j == 0) {
-                    return i;
-                }
-            }
-
-            int b = badChars[i];
-            int g = goodSuffix[i];
-            int jump = Math.min(b, g);
-            i += jump;
-            j = jump;
-            if (j == 0) {
-                return i;
-            }
-            //System.out.println(b + " : " + g);
+    private final String pattern;
+    private final char[] chars;
+
+    // the last index of each char below 256 in the pattern, or -1
+    private final int[] lastLatin = new int[256];
+    // the pattern's other chars, sorted, and the last index of each
+    private final char[] highChars;
+    private final int[] highLast;
+
+    // goodSuffix[j + 1] is how far the good suffix rule shifts when the
+    // pattern's char j doesn't match but all the ones after it do, and
+    // goodSuffix[0] is how far it shifts after a whole match
+    private final int[] goodSuffix;
+
+    public BoyerMoore(String pattern) {
+        if (pattern.isEmpty()) {
+            throw new IllegalArgumentException("empty pattern");
+        }
+        this.pattern = pattern;
+        this.chars = pattern.toCharArray();
+
+        TreeMap<Character, Integer> high = badCharacter();
+        highChars = new char[high.size()];
+        highLast = new int[high.size()];
+        int i = 0;
+        for (Map.Entry<Character, Integer> entry : high.entrySet()) {
+            highChars[i] = entry.getKey();
+            highLast[i] = entry.getValue();
+            i++;
         }
 
-        return -1;
+        goodSuffix = goodSuffix();
     }
 
     /**
-     * good suffix rule
+     * Times BoyerMoore against KMP and String.indexOf, finding every match of
+     * some patterns in a file.
      */
-    private int[] goodSuffix(String pattern, String text) {
-        int i = text.length() - 1;
-        int j = pattern.length() - 1;
-        int[] table = new int[text.length()];
-        Arrays.fill(table, pattern.length());
-
-        while (i >= 0) {
-            if (j < 0) {
-                break;
-            } else if (pattern.charAt(j) != text.charAt(i)) {
-                if (i == text.length() - 1) {
-                    i--;
-                    continue;
+    public static void main(String[] args) throws IOException {
+        String text = new String(Files.readAllBytes(new File(args[0]).toPath()), StandardCharsets.UTF_8);
+        String[] patterns = args.length > 1 ? Arrays.copyOfRange(args, 1, args.length)
+                : new String[] { "the", "Natasha", "Prince Andrew", "said Pierre, smiling",
+                        "It was in July, 1805, and the speaker was the well-known Anna Pavlovna" };
+
+        System.out.printf("%-24s %8s %12s %12s %12s%n", "pattern", "matches", "indexOf", "KMP", "BoyerMoore");
+        for (String pattern : patterns) {
+            final KMP kmp = new KMP(pattern);
+            final BoyerMoore boyerMoore = new BoyerMoore(pattern);
+            final long[] count = new long[1];
+            final KMP.MatchListener counter = new KMP.MatchListener() {
+                @Override
+                public void onMatch(long index) {
+                    count[0]++;
                 }
-
-                // decide how much to skip by
-                int suffix = suffix(pattern, text.charAt(i + 1), j);
-
-                // reset j
-                if (suffix < 0) {
-                    j = pattern.length();
-                } else {
-                    j = suffix;
-                    i++;
-                    System.out.println(pattern.charAt(j) + " : " + text.charAt(i));
+            };
+
+            double[] times = new double[3];
+            // the first rounds warm up the JIT, and aren't counted
+            for (int round = 0; round < 15; round++) {
+                for (int engine = 0; engine < 3; engine++) {
+                    count[0] = 0;
+                    long start = System.nanoTime();
+                    if (engine == 0) {
+                        for (int i = text.indexOf(pattern); i >= 0; i = text.indexOf(pattern, i + 1)) {
+                            count[0]++;
+                        }
+                    } else if (engine == 1) {
+                        kmp.findAll(text, counter);
+                    } else {
+                        boyerMoore.findAll(text, counter);
+                    }
+                    if (round >= 5) {
+                        times[engine] += (System.nanoTime() - start) / 10 / 1e6;
+                    }
                 }
             }
 
-            i--;
-            j--;
-            table[i] = j;
+            String name = pattern.length() > 22 ? pattern.substring(0, 19) + "..." : pattern;
+            System.out.printf("%-24s %8d %10.2fms %10.2fms %10.2fms%n", name, count[0], times[0], times[1], times[2]);
         }
-
-        return table;
     }
 
     /**
-     * returns a positive integer if the good suffix rule can be applied to the pattern, otherwise it will return -1
+     * Fills in the last index of each char below 256, and returns the last index
+     * of each of the others.
      */
-    private int suffix(String pattern, char lastMatchedChar, int j) {
-        for (int i = j - 1; i >= 0; i--) {
-            if (pattern.charAt(i) == lastMatchedChar) {
-                return i;
+    private TreeMap<Character, Integer> badCharacter() {
+        Arrays.fill(lastLatin, -1);
+        TreeMap<Character, Integer> high = new TreeMap<>();
+        for (int i = 0; i < chars.length; i++) {
+            if (chars[i] < 256) {
+                lastLatin[chars[i]] = i;
+            } else {
+                high.put(chars[i], i);
             }
         }
-
-        return -1;
+        return high;
     }
 
     /**
-     * bad character rule.
+     * good suffix rule. border[i] is where the widest border of the suffix of the
+     * pattern starting at i starts, which is where a matched suffix can be
+     * lined up with again.
      */
-    private int[] badCharacter(String pattern, String text) {
-        int i = text.length() - 1;
-        int j = pattern.length() - 1;
-        int[] table = new int[text.length()];
-        // fill the skip table with the length of the pattern initially
-        Arrays.fill(table, pattern.length());
-
-        while (i >= 0) {
-            if (j == 0) {
-                break;
-            } else if (pattern.charAt(j) != text.charAt(i)) {
-                // decide how much to skip by
-                int containsChar = containsChar(pattern, text.charAt(i));
-                table[i] = containsChar > -1 ? containsChar : pattern.length();
-                // reset j
-                j = pattern.length() - 1;
+    private int[] goodSuffix() {
+        int m = chars.length;
+        int[] shift = new int[m + 1];
+        int[] border = new int[m + 1];
+
+        // where the matched suffix appears again, preceded by a different char
+        int i = m;
+        int j = m + 1;
+        border[i] = j;
+        while (i > 0) {
+            while (j <= m && chars[i - 1] != chars[j - 1]) {
+                if (shift[j] == 0) {
+                    shift[j] = j - i;
+                }
+                j = border[j];
             }
-
             i--;
             j--;
+            border[i] = j;
+        }
+
+        // otherwise, where a prefix of the pattern matches the end of the suffix
+        j = border[0];
+        for (i = 0; i <= m; i++) {
+            if (shift[i] == 0) {
+                shift[i] = j;
+            }
+            if (i == j) {
+                j = border[j];
+            }
         }
 
-        return table;
+        return shift;
+    }
+
+    private int lastIndex(char c) {
+        if (c < 256) {
+            return lastLatin[c];
+        } else if (highChars.length == 0) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(highChars, c);
+        return i >= 0 ? highLast[i] : -1;
+    }
+
+    public String getPattern() {
+        return pattern;
     }
 
     /**
-     * checks if the pattern contains a character.
+     * Returns the index of the first match of the pattern in the text, or -1 if
+     * there isn't one.
      */
-    private int containsChar(String pattern, char c) {
-        for (int i = pattern.length() - 1; i >= 0; i--) {
-            if (pattern.charAt(i) == c) {
+    public int search(String text, String pattern) {
+        BoyerMoore boyerMoore = pattern.equals(this.pattern) ? this : new BoyerMoore(pattern);
+        return boyerMoore.indexOf(text, 0);
+    }
+
+    /**
+     * Returns the index of the first match that starts at or after from, or -1
+     * if there isn't one.
+     */
+    public int indexOf(CharSequence text, int from) {
+        int m = chars.length;
+        int last = text.length() - m;
+        int i = Math.max(from, 0);
+
+        while (i <= last) {
+            int j = m - 1;
+            while (j >= 0 && chars[j] == text.charAt(i + j)) {
+                j--;
+            }
+            if (j < 0) {
                 return i;
             }
+            i += Math.max(goodSuffix[j + 1], j - lastIndex(text.charAt(i + j)));
         }
 
         return -1;
     }
+
+    /**
+     * Tells the listener about every match in the text, overlapping ones
+     * included, in order. After a match, Galil's rule skips comparing the part of
+     * the pattern the shift is known to line up with the text again, so this
+     * never compares more than about twice as many chars as the text has.
+     */
+    public void findAll(CharSequence text, KMP.MatchListener listener) {
+        findAll(text, 0, text.length(), listener);
+    }
+
+    /**
+     * Tells the listener about every match that lies between from and to in
+     * the text, in order.
+     */
+    public void findAll(CharSequence text, int from, int to, KMP.MatchListener listener) {
+        int m = chars.length;
+        int last = to - m;
+        int period = goodSuffix[0];
+        int i = from;
+        // the chars of the pattern before bound are known to match
+        int bound = 0;
+
+        while (i <= last) {
+            int j = m - 1;
+            while (j >= bound && chars[j] == text.charAt(i + j)) {
+                j--;
+            }
+            if (j < bound) {
+                listener.onMatch(i);
+                i += period;
+                bound = m - period;
+            } else {
+                i += Math.max(goodSuffix[j + 1], j - lastIndex(text.charAt(i + j)));
+                bound = 0;
+            }
+        }
+    }
 }
@@ -0,0 +1,313 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+/**
+ * A canonical Huffman code over chars. Only the length of each char's code comes
+ * from the Huffman tree: the codes themselves are given out in order of length
+ * then char, so the lengths are all a decoder needs to rebuild the code.
+ * <p>
+ * Encoding looks each char's code up in a table and hands it to a BitWriter.
+ * Decoding peeks at the next LOOKUP bits and looks them up in a table of every
+ * code that short, falling back to walking the lengths for longer codes. Codes
+ * are at most MAX_LENGTH bits, flattening the frequencies until they fit.
+ */
+class CanonicalHuffman {
+
+    static final int MAX_LENGTH = 24;
+    static final int SYMBOLS = Character.MAX_VALUE + 1;
+    private static final int LOOKUP = 11;
+
+    // the length and code of each char, 0 for chars that aren't in the code
+    private final byte[] lengths;
+    private final int[] codes = new int[SYMBOLS];
+    private int maxLength;
+    private int symbols;
+
+    // the chars in order of their codes, and for each length, the first code
+    // of that length, how many there are, and where they start in sorted
+    private final char[] sorted;
+    private final int[] first = new int[MAX_LENGTH + 2];
+    private final int[] count = new int[MAX_LENGTH + 2];
+    private final int[] offset = new int[MAX_LENGTH + 2];
+
+    // for each LOOKUP bits, the char whose code they start with << 8 | its
+    // length, or 0 if its code is longer
+    private final int[] table = new int[1 << LOOKUP];
+
+    /**
+     * Builds the code from the length of each char's code. Chars past the end
+     * of lengths aren't in the code.
+     */
+    CanonicalHuffman(byte[] lengths) {
+        if (lengths.length > SYMBOLS) {
+            throw new IllegalArgumentException("more lengths than chars");
+        }
+        this.lengths = Arrays.copyOf(lengths, SYMBOLS);
+
+        for (int c = 0; c < SYMBOLS; c++) {
+            int length = this.lengths[c];
+            if (length < 0 || length > MAX_LENGTH) {
+                throw new IllegalArgumentException("bad code length " + length + " for char " + c);
+            } else if (length > 0) {
+                count[length]++;
+                symbols++;
+                maxLength = Math.max(maxLength, length);
+            }
+        }
+
+        // codes of each length follow on from the last code one bit shorter
+        long kraft = 0;
+        for (int length = 1; length <= MAX_LENGTH; length++) {
+            first[length + 1] = (first[length] + count[length]) << 1;
+            offset[length + 1] = offset[length] + count[length];
+            kraft += (long) count[length] << (MAX_LENGTH - length);
+        }
+        if (kraft > 1L << MAX_LENGTH) {
+            throw new IllegalArgumentException("code lengths don't make a prefix code");
+        }
+
+        sorted = new char[symbols];
+        int[] next = Arrays.copyOf(offset, offset.length);
+        for (int c = 0; c < SYMBOLS; c++) {
+            int length = this.lengths[c];
+            if (length > 0) {
+                codes[c] = first[length] + next[length] - offset[length];
+                sorted[next[length]++] = (char) c;
+                if (length <= LOOKUP) {
+                    int shift = LOOKUP - length;
+                    for (int i = 0; i < 1 << shift; i++) {
+                        table[codes[c] << shift | i] = c << 8 | length;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the code for a text.
+     */
+    static CanonicalHuffman forText(CharSequence text) {
+        long[] frequencies = new long[SYMBOLS];
+        for (int i = 0; i < text.length(); i++) {
+            frequencies[text.charAt(i)]++;
+        }
+        return forFrequencies(frequencies);
+    }
+
+    /**
+     * Builds the code for chars that appear as often as the given frequencies.
+     * Chars past the end of frequencies don't appear.
+     */
+    static CanonicalHuffman forFrequencies(long[] frequencies) {
+        long[] weights = frequencies.clone();
+        while (true) {
+            byte[] lengths = codeLengths(weights);
+            int longest = 0;
+            for (byte length : lengths) {
+                longest = Math.max(longest, length);
+            }
+            if (longest <= MAX_LENGTH) {
+                return new CanonicalHuffman(lengths);
+            }
+
+            // halving every frequency evens out the tree until it's short enough
+            for (int c = 0; c < weights.length; c++) {
+                if (weights[c] > 0) {
+                    weights[c] = (weights[c] + 1) >> 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a Huffman tree over the chars with non zero weights and returns the
+     * depth of each char in it. A lone char gets a code 1 bit long.
+     */
+    private static byte[] codeLengths(long[] weights) {
+        int leaves = 0;
+        for (long weight : weights) {
+            if (weight > 0) {
+                leaves++;
+            }
+        }
+
+        // nodes are numbered leaves first; the queue holds weight << 18 | node
+        int[] parent = new int[2 * leaves];
+        char[] chars = new char[leaves];
+        PriorityQueue<Long> queue = new PriorityQueue<>();
+        for (int c = 0, node = 0; c < weights.length; c++) {
+            if (weights[c] > 0) {
+                chars[node] = (char) c;
+                queue.add(weights[c] << 18 | node++);
+            }
+        }
+
+        int nodes = leaves;
+        while (queue.size() > 1) {
+            long a = queue.poll();
+            long b = queue.poll();
+            parent[(int) (a & 0x3FFFF)] = nodes;
+            parent[(int) (b & 0x3FFFF)] = nodes;
+            queue.add(((a >>> 18) + (b >>> 18)) << 18 | nodes++);
+        }
+
+        // parents are numbered after their children, so depths can be filled in backwards
+        int[] depth = new int[nodes];
+        for (int node = nodes - 2; node >= 0; node--) {
+            depth[node] = depth[parent[node]] + 1;
+        }
+
+        byte[] lengths = new byte[weights.length];
+        for (int node = 0; node < leaves; node++) {
+            lengths[chars[node]] = (byte) Math.max(1, Math.min(depth[node], MAX_LENGTH + 1));
+        }
+        return lengths;
+    }
+
+    /**
+     * Returns the length of each char's code, 0 for chars that aren't in it.
+     */
+    byte[] getLengths() {
+        return lengths.clone();
+    }
+
+    int getSymbols() {
+        return symbols;
+    }
+
+    int getMaxLength() {
+        return maxLength;
+    }
+
+    /**
+     * Returns how many bits the text takes to encode.
+     */
+    long encodedBits(CharSequence text) {
+        long bits = 0;
+        for (int i = 0; i < text.length(); i++) {
+            bits += lengths[text.charAt(i)];
+        }
+        return bits;
+    }
+
+    /**
+     * Writes the codes of the chars from start to end of the text.
+     */
+    void encode(CharSequence text, int start, int end, BitWriter out) {
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (lengths[c] == 0) {
+                throw new IllegalArgumentException("char " + (int) c + " isn't in the code");
+            }
+            out.write(codes[c], lengths[c]);
+        }
+    }
+
+    void encode(char[] text, int start, int end, BitWriter out) {
+        for (int i = start; i < end; i++) {
+            char c = text[i];
+            if (lengths[c] == 0) {
+                throw new IllegalArgumentException("char " + (int) c + " isn't in the code");
+            }
+            out.write(codes[c], lengths[c]);
+        }
+    }
+
+    /**
+     * Writes the codes of the remaining bytes in the buffer, treating each byte
+     * as the char with the same unsigned value.
+     */
+    void encode(ByteBuffer bytes, BitWriter out) {
+        while (bytes.hasRemaining()) {
+            int c = bytes.get() & 0xFF;
+            if (lengths[c] == 0) {
+                throw new IllegalArgumentException("byte " + c + " isn't in the code");
+            }
+            out.write(codes[c], lengths[c]);
+        }
+    }
+
+    /**
+     * Reads bytes into the rest of the buffer, the opposite of encoding bytes.
+     */
+    void decode(BitReader in, ByteBuffer out) {
+        while (out.hasRemaining()) {
+            out.put((byte) next(in));
+        }
+    }
+
+    /**
+     * Reads count chars into out, starting at start.
+     */
+    void decode(BitReader in, char[] out, int start, int count) {
+        for (int i = start; i < start + count; i++) {
+            out[i] = next(in);
+        }
+    }
+
+    /**
+     * Reads chars until bits bits have been read, and returns them.
+     */
+    String decode(BitReader in, long bits) {
+        StringBuilder decoded = new StringBuilder();
+        while (in.position() < bits) {
+            decoded.append(next(in));
+        }
+        if (in.position() != bits) {
+            throw new IllegalArgumentException("the bits don't end with a whole code");
+        }
+        return decoded.toString();
+    }
+
+    /**
+     * Reads the next char.
+     */
+    char next(BitReader in) {
+        int entry = table[in.peek(LOOKUP)];
+        if (entry != 0) {
+            in.skip(entry & 0xFF);
+            return (char) (entry >>> 8);
+        }
+
+        for (int length = LOOKUP + 1; length <= maxLength; length++) {
+            int index = in.peek(length) - first[length];
+            if (index >= 0 && index < count[length]) {
+                in.skip(length);
+                return sorted[offset[length] + index];
+            }
+        }
+        throw new IllegalArgumentException("not a code");
+    }
+
+    /**
+     * Times encoding and decoding a file.
+     */
+    public static void main(String[] args) throws IOException {
+        String text = new String(Files.readAllBytes(new File(args[0]).toPath()), StandardCharsets.UTF_8);
+        CanonicalHuffman huffman = forText(text);
+        char[] chars = text.toCharArray();
+        char[] decoded = new char[chars.length];
+        System.out.println(huffman.getSymbols() + " symbols, longest code " + huffman.getMaxLength() + " bits");
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            BitWriter out = new BitWriter();
+            huffman.encode(chars, 0, chars.length, out);
+            out.flush();
+            byte[] encoded = out.toByteArray();
+            long middle = System.nanoTime();
+            huffman.decode(new BitReader(encoded), decoded, 0, decoded.length);
+            long end = System.nanoTime();
+
+            double megabytes = chars.length * 2 / 1e6;
+            System.out.printf("%d bytes, encode %.0fMB/s, decode %.0fMB/s, same: %b%n", encoded.length,
+                    megabytes / ((middle - start) / 1e9), megabytes / ((end - middle) / 1e9),
+                    Arrays.equals(chars, decoded));
+        }
+    }
+}
@@ -0,0 +1,131 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compresses files with a canonical Huffman code over their bytes, a block at
+ * a time, so a file of any size only needs a few buffers of memory. The input
+ * is read twice: once to count the bytes, and once to encode them.
+ * <p>
+ * A compressed file starts with a header of the magic number, the version, the
+ * length of the original file, and the length of the code for each of the 256
+ * byte values, which is all it takes to rebuild the code. The codes follow,
+ * padded with zeros to a whole byte at the end.
+ */
+public class HuffmanStream {
+
+    static final int MAGIC = 0x48554646; // "HUFF"
+    static final int VERSION = 1;
+    private static final int HEADER = 4 + 1 + 8 + 256;
+    private static final int BLOCK = 1 << 16;
+
+    /**
+     * Compresses in to out, and returns the code it used.
+     */
+    public static CanonicalHuffman compress(Path in, Path out) throws IOException {
+        try (FileChannel input = FileChannel.open(in);
+                FileChannel output = FileChannel.open(out, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer block = ByteBuffer.allocate(BLOCK);
+
+            long[] frequencies = new long[256];
+            long length = 0;
+            while (input.read(block) != -1) {
+                block.flip();
+                length += block.remaining();
+                while (block.hasRemaining()) {
+                    frequencies[block.get() & 0xFF]++;
+                }
+                block.clear();
+            }
+            CanonicalHuffman code = CanonicalHuffman.forFrequencies(frequencies);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).put((byte) VERSION).putLong(length).put(code.getLengths(), 0, 256).flip();
+            while (header.hasRemaining()) {
+                output.write(header);
+            }
+
+            BitWriter writer = new BitWriter(output, BLOCK);
+            input.position(0);
+            while (input.read(block) != -1) {
+                block.flip();
+                code.encode(block, writer);
+                block.clear();
+            }
+            writer.flush();
+            return code;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Decompresses in, which was written by compress, to out.
+     */
+    public static void decompress(Path in, Path out) throws IOException {
+        try (FileChannel input = FileChannel.open(in);
+                FileChannel output = FileChannel.open(out, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while (header.hasRemaining() && input.read(header) != -1) {
+            }
+            header.flip();
+            if (header.remaining() < HEADER || header.getInt() != MAGIC || header.get() != VERSION) {
+                throw new IOException(in + " isn't Huffman compressed");
+            }
+            long remaining = header.getLong();
+            byte[] lengths = new byte[256];
+            header.get(lengths);
+
+            CanonicalHuffman code;
+            try {
+                code = new CanonicalHuffman(lengths);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(in + " has a bad code table: " + e.getMessage());
+            }
+
+            BitReader reader = new BitReader(input, BLOCK);
+            ByteBuffer block = ByteBuffer.allocate(BLOCK);
+            while (remaining > 0) {
+                block.limit((int) Math.min(BLOCK, remaining));
+                try {
+                    code.decode(reader, block);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(in + " is corrupt: " + e.getMessage());
+                }
+                if (reader.overrun()) {
+                    throw new IOException(in + " is truncated");
+                }
+                remaining -= block.position();
+                block.flip();
+                while (block.hasRemaining()) {
+                    output.write(block);
+                }
+                block.clear();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Compresses or decompresses a file: compress in out, or decompress in out.
+     */
+    public static void main(String[] args) throws IOException {
+        long start = System.currentTimeMillis();
+        Path in = Paths.get(args[1]);
+        Path out = Paths.get(args[2]);
+        if (args[0].equals("compress")) {
+            compress(in, out);
+        } else {
+            decompress(in, out);
+        }
+        System.out.println(in.toFile().length() + " bytes to " + out.toFile().length() + " bytes in "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+}
@@ -1,31 +1,79 @@
-import java.time.Duration;
-import java.time.Instant;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 /**
- * A new KMP instance is created for every substring search performed. Both the
- * pattern and the text are passed to the constructor and the search method. You
- * could, for example, use the constructor to create the match table and the
- * search method to perform the search itself.
+ * A KMP instance is a compiled pattern: the match table is built once in the
+ * constructor, and the same instance can then search any number of texts, from
+ * any number of threads. Texts can be any CharSequence, such as a String or a
+ * CharBuffer, or can be streamed in chunks from a Reader, so a text never has to
+ * fit in one String.
  */
 public class KMP {
+    // jumpTable[i] is the length of the longest proper prefix of the first i
+    // characters of the pattern that is also a suffix of them, or -1 for i = 0
     int[] jumpTable;
+    private final String pattern;
+    private final char[] chars;
+
+    /**
+     * Something that is told about every match findAll finds.
+     */
+    public interface MatchListener {
+        /**
+         * Called with the index of the first character of a match, in the
+         * order they are found.
+         */
+        void onMatch(long index);
+    }
 
     public KMP(String pattern, String text) {
+        this(pattern);
+    }
+
+    public KMP(String pattern) {
+        if (pattern.isEmpty()) {
+            throw new IllegalArgumentException("empty pattern");
+        }
+        this.pattern = pattern;
+        this.chars = pattern.toCharArray();
         initTable(pattern);
     }
 
-    private void initTable(String pattern) {
-        jumpTable = new int[pattern.length()];
-        jumpTable[0] = -1;
-        if(pattern.length() == 1) {
-            return;
+    /**
+     * Prints how many times a pattern appears in a file, and how long it took to
+     * find them, reading the file in chunks.
+     */
+    public static void main(String[] args) throws IOException {
+        KMP kmp = new KMP(args[0]);
+        final long[] count = new long[1];
+        long start = System.currentTimeMillis();
+
+        try (Reader in = Files.newBufferedReader(new File(args[1]).toPath(), StandardCharsets.UTF_8)) {
+            kmp.findAll(in, new MatchListener() {
+                @Override
+                public void onMatch(long index) {
+                    count[0]++;
+                }
+            });
         }
 
+        long end = System.currentTimeMillis();
+        System.out.println(count[0] + " matches in " + (end - start) + "ms");
+    }
+
+    private void initTable(String pattern) {
+        // one more entry than the pattern, so a search can carry on after a
+        // match and find the ones that overlap it
+        jumpTable = new int[pattern.length() + 1];
+        jumpTable[0] = -1;
         jumpTable[1] = 0;
         int prefix = 0;
         int pos = 2;
 
-        while (pos < pattern.length()) {
+        while (pos <= pattern.length()) {
             if (pattern.charAt(pos - 1) == pattern.charAt(prefix)) {
                 jumpTable[pos] = prefix + 1;
                 pos++;
@@ -39,12 +87,15 @@ public class KMP {
         }
     }
 
+    public String getPattern() {
+        return pattern;
+    }
+
     public int bruteForceSearch(String pattern, String text) {
-        Instant startTime = Instant.now();
         int txtLen = text.length();
         int patLen = pattern.length();
 
-        for (int i = 0; i < txtLen - patLen; i++) {
+        for (int i = 0; i <= txtLen - patLen; i++) {
             boolean found = true;
 
             for (int j = 0; j < patLen; j++) {
@@ -55,14 +106,10 @@ public class KMP {
             }
 
             if (found) {
-                Instant endTime = Instant.now();
-                System.out.println("brute force execution time: " + Duration.between(startTime, endTime).toMillis() + "ms");
                 return i;
             }
         }
 
-        Instant endTime = Instant.now();
-        System.out.println("brute force execution time: " + Duration.between(startTime, endTime).toMillis() + "ms");
         return -1;
     }
 
@@ -73,29 +120,121 @@ public class KMP {
      * exists, or -1 if it doesn't.
      */
     public int search(String pattern, String text) {
-        Instant startTime = Instant.now();
-        int currentMatch = 0;
+        KMP kmp = pattern.equals(this.pattern) ? this : new KMP(pattern);
+        return kmp.indexOf(text, 0);
+    }
+
+    /**
+     * Returns the index of the first match that starts at or after from, or -1
+     * if there isn't one.
+     */
+    public int indexOf(CharSequence text, int from) {
         int pos = 0;
+        for (int i = Math.max(from, 0); i < text.length(); i++) {
+            pos = step(pos, text.charAt(i));
+            if (pos == chars.length) {
+                return i - chars.length + 1;
+            }
+        }
+        return -1;
+    }
 
-        while ((pos + currentMatch) < text.length()) {
-            if (pattern.charAt(pos) == text.charAt(currentMatch + pos)) {
-                pos++;
-                if (pos == pattern.length()) {
-                    Instant endTime = Instant.now();
-                    System.out.println("KMP execution time: " + Duration.between(startTime, endTime).toMillis() + "ms");
-                    return currentMatch;
+    /**
+     * Tells the listener about every match in the text, overlapping ones
+     * included, in order.
+     */
+    public void findAll(CharSequence text, MatchListener listener) {
+        findAll(text, 0, text.length(), listener);
+    }
+
+    /**
+     * Tells the listener about every match that lies between from and to in
+     * the text, in order.
+     */
+    public void findAll(CharSequence text, int from, int to, MatchListener listener) {
+        int pos = 0;
+        for (int i = from; i < to; i++) {
+            pos = step(pos, text.charAt(i));
+            if (pos == chars.length) {
+                listener.onMatch(i - chars.length + 1);
+            }
+        }
+    }
+
+    /**
+     * Tells the listener about every match in the text read from in, without
+     * holding more than a chunk of it in memory at once. Doesn't close in.
+     */
+    public void findAll(Reader in, MatchListener listener) throws IOException {
+        Matcher matcher = new Matcher(listener);
+        char[] buffer = new char[1 << 16];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            matcher.feed(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Returns a matcher for searching a text that arrives in pieces.
+     */
+    public Matcher matcher(MatchListener listener) {
+        return new Matcher(listener);
+    }
+
+    /**
+     * Returns how many characters of the pattern are matched after c, when pos
+     * of them were matched before it.
+     */
+    private int step(int pos, char c) {
+        if (pos == chars.length) {
+            pos = jumpTable[pos];
+        }
+        while (pos >= 0 && chars[pos] != c) {
+            pos = jumpTable[pos];
+        }
+        return pos + 1;
+    }
+
+    /**
+     * Searches a text that is given to it a piece at a time, remembering how
+     * much of the pattern the end of the last piece matched, so matches that
+     * span two pieces are still found. Indexes are from the start of the first
+     * piece.
+     */
+    public class Matcher {
+        private final MatchListener listener;
+        private int pos = 0;
+        private long offset = 0;
+
+        private Matcher(MatchListener listener) {
+            this.listener = listener;
+        }
+
+        public void feed(CharSequence text) {
+            for (int i = 0; i < text.length(); i++) {
+                pos = step(pos, text.charAt(i));
+                if (pos == chars.length) {
+                    listener.onMatch(offset + i - chars.length + 1);
                 }
-            } else if (jumpTable[pos] == -1) {
-                currentMatch = currentMatch + pos + 1;
-                pos = 0;
-            } else {
-                currentMatch = currentMatch + pos - jumpTable[pos];
-                pos = jumpTable[pos];
             }
+            offset += text.length();
         }
 
-        Instant endTime = Instant.now();
-        System.out.println("KMP execution time: " + Duration.between(startTime, endTime).toMillis() + "ms");
-        return -1;
+        public void feed(char[] text, int start, int length) {
+            for (int i = start; i < start + length; i++) {
+                pos = step(pos, text[i]);
+                if (pos == chars.length) {
+                    listener.onMatch(offset + i - start - chars.length + 1);
+                }
+            }
+            offset += length;
+        }
+
+        /**
+         * Returns how many characters have been searched.
+         */
+        public long position() {
+            return offset;
+        }
     }
 }
@@ -0,0 +1,168 @@
+import java.util.Arrays;
+
+/**
+ * An LZ77 compressor that finds matches with hash chains instead of scanning
+ * the window. Every position is hashed on its first MIN_MATCH chars, and each
+ * hash has a chain of the positions with that hash, newest first, so finding
+ * the longest match only compares against positions that start the same way.
+ * <p>
+ * Like LempelZiv's format, the output is a list of tokens, each a match (or no
+ * match) followed by the next char. With lazy matching, a match is put off if
+ * the next position has a longer one.
+ */
+class LZ77 {
+
+    static final int MIN_MATCH = 3;
+    private static final int HASH_BITS = 15;
+    // a match this long is taken without looking for a longer one
+    private static final int NICE_LENGTH = 64;
+
+    /**
+     * Something that is given the tokens of a compressed text, in order.
+     */
+    interface TokenListener {
+        /**
+         * A copy of length chars from distance chars back, then the char next.
+         * length is 0, and distance too, when there is no match.
+         */
+        void token(int distance, int length, char next);
+    }
+
+    private final int window;
+    private final int maxLength;
+    private final int maxChain;
+    private final boolean lazy;
+    private final boolean overlap;
+
+    /**
+     * A compressor that looks up to window chars back for matches of up to
+     * maxLength chars, following at most maxChain positions of each hash chain.
+     * If overlap is false, matches end before the position they're copied to,
+     * which is what LempelZiv's decompress needs.
+     */
+    LZ77(int window, int maxLength, int maxChain, boolean lazy, boolean overlap) {
+        if (window < 1 || maxLength < MIN_MATCH || maxChain < 1) {
+            throw new IllegalArgumentException("bad LZ77 settings");
+        }
+        this.window = window;
+        this.maxLength = maxLength;
+        this.maxChain = maxChain;
+        this.lazy = lazy;
+        this.overlap = overlap;
+    }
+
+    /**
+     * Compresses a text, giving its tokens to out.
+     */
+    void compress(char[] text, TokenListener out) {
+        new Run(text).compress(out);
+    }
+
+    /**
+     * The state of compressing one text.
+     */
+    private class Run {
+        private final char[] text;
+        // the newest position with each hash, and the one before each position with its hash
+        private final int[] head = new int[1 << HASH_BITS];
+        private final int[] previous = new int[window];
+        // positions before this have been added to the chains
+        private int inserted = 0;
+
+        // the last match found
+        private int matchLength;
+        private int matchDistance;
+
+        Run(char[] text) {
+            this.text = text;
+            Arrays.fill(head, -1);
+        }
+
+        void compress(TokenListener out) {
+            int n = text.length;
+            int pos = 0;
+            boolean found = false;
+
+            while (pos < n) {
+                if (!found) {
+                    find(pos);
+                }
+                found = false;
+
+                // a longer match at the next position is worth a literal
+                if (lazy && matchLength >= MIN_MATCH && matchLength < NICE_LENGTH && pos + 1 < n) {
+                    int length = matchLength;
+                    int distance = matchDistance;
+                    find(pos + 1);
+                    if (matchLength > length) {
+                        out.token(0, 0, text[pos]);
+                        pos++;
+                        found = true;
+                        continue;
+                    }
+                    matchLength = length;
+                    matchDistance = distance;
+                }
+
+                if (matchLength < MIN_MATCH) {
+                    matchLength = 0;
+                    matchDistance = 0;
+                }
+                out.token(matchDistance, matchLength, text[pos + matchLength]);
+                pos += matchLength + 1;
+            }
+        }
+
+        /**
+         * Finds the longest match for the text at pos that leaves a char after
+         * it, into matchLength and matchDistance.
+         */
+        private void find(int pos) {
+            insertBefore(pos);
+            matchLength = 0;
+            matchDistance = 0;
+
+            int longest = Math.min(maxLength, text.length - pos - 1);
+            if (longest < MIN_MATCH) {
+                return;
+            }
+
+            int candidate = head[hash(pos)];
+            for (int chain = maxChain; candidate >= 0 && pos - candidate <= window && chain > 0; chain--) {
+                int limit = overlap ? longest : Math.min(longest, pos - candidate);
+                // only worth comparing if it could beat the best so far
+                if (limit > matchLength && text[candidate + matchLength] == text[pos + matchLength]) {
+                    int length = 0;
+                    while (length < limit && text[candidate + length] == text[pos + length]) {
+                        length++;
+                    }
+                    if (length > matchLength) {
+                        matchLength = length;
+                        matchDistance = pos - candidate;
+                        if (length == longest || length >= NICE_LENGTH) {
+                            break;
+                        }
+                    }
+                }
+                candidate = previous[candidate % window];
+            }
+        }
+
+        /**
+         * Adds the positions before pos to the hash chains.
+         */
+        private void insertBefore(int pos) {
+            int last = Math.min(pos, text.length - MIN_MATCH + 1);
+            for (; inserted < last; inserted++) {
+                int hash = hash(inserted);
+                previous[inserted % window] = head[hash];
+                head[hash] = inserted;
+            }
+        }
+
+        private int hash(int pos) {
+            int h = (text[pos] * 31 + text[pos + 1]) * 31 + text[pos + 2];
+            return (h * 0x9E3779B1) >>> (32 - HASH_BITS);
+        }
+    }
+}
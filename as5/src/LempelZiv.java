@@ -1,99 +1,230 @@
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Scanner;
-import java.util.regex.Pattern;
+import java.util.Arrays;
 
 /**
  * A new instance of LempelZiv is created for every run.
  */
 public class LempelZiv {
 
+    // how far back matches can be, how long they can be, and how many
+    // earlier positions with the same hash are tried for each
+    private static final int WINDOW = 1 << 15;
+    private static final int MAX_LENGTH = 1 << 10;
+    private static final int MAX_CHAIN = 64;
+
+    static final int MAGIC = 0x4C5A3737; // "LZ77"
+    static final int VERSION = 1;
+
+    // the text format can't copy a match that overlaps where it's copied to,
+    // the binary format can
+    private final LZ77 lz77;
+    private final LZ77 binary;
+
+    public LempelZiv() {
+        this(WINDOW);
+    }
+
+    public LempelZiv(int window) {
+        lz77 = new LZ77(window, MAX_LENGTH, MAX_CHAIN, true, false);
+        binary = new LZ77(window, MAX_LENGTH, MAX_CHAIN, true, true);
+    }
+
     /**
      * Take uncompressed input as a text string, compress it, and return it as a
      * text string.
      */
     public String compress(String input) {
-        StringBuilder compressed = new StringBuilder();
-        int cursor = 0;
-        int window = 500;
-
-        while (cursor < input.length()) {
-            int length = 0;
-            int previousMatch = 0;
-            while (true) {
-                char c = input.charAt(cursor + length);
-                String sequence = getSequence(input, cursor, cursor + length);
-                int startIndex = cursor < window ? 0 : cursor - window;
-                int sequenceIndex = findSequence(input, sequence, startIndex, cursor);
-                boolean match = sequenceIndex > -1;
-
-                if (match && (cursor + 1 + length) < input.length()) {
-                    previousMatch = sequenceIndex;
-                    length++;
-                } else {
-                    compressed.append("[").append(previousMatch).append(",").append(length).append(",")
-                            .append(c).append("]");
-
-                    cursor = cursor + length + 1;
-                    break;
-                }
+        final StringBuilder compressed = new StringBuilder();
+        final int[] cursor = { 0 };
+
+        lz77.compress(input.toCharArray(), new LZ77.TokenListener() {
+            @Override
+            public void token(int distance, int length, char next) {
+                // matches are written as where they start, not how far back
+                int previousMatch = length == 0 ? 0 : cursor[0] - distance;
+                compressed.append("[").append(previousMatch).append(",").append(length).append(",")
+                        .append(next).append("]");
+                cursor[0] += length + 1;
             }
-        }
+        });
 
         return compressed.toString();
     }
 
-    private int findSequence(String text, String sequence, int startIndex, int endIndex) {
-        for (int i = startIndex; i < endIndex - sequence.length(); i++) {
-            String substr = text.substring(i, i + sequence.length());
-            if (substr.equals(sequence)) {
-                return i;
+    /**
+     * Take compressed input as a text string, decompress it, and return it as a
+     * text string.
+     */
+    public String decompress(String compressed) {
+        StringBuilder decompressed = new StringBuilder();
+        int[] pos = { 0 };
+
+        while (pos[0] < compressed.length()) {
+            expect(compressed, pos, '[');
+            int previousMatch = parseNum(compressed, pos, ',');
+            int length = parseNum(compressed, pos, ',');
+            if (pos[0] >= compressed.length()) {
+                throw new IllegalArgumentException("token ends early at " + pos[0]);
             }
+            char nextChar = compressed.charAt(pos[0]++);
+            expect(compressed, pos, ']');
+
+            decompressed.append(decompressed, previousMatch, previousMatch + length).append(nextChar);
         }
-        return -1;
+
+        return decompressed.toString();
     }
 
-    private String getSequence(String text, int startIndex, int endIndex) {
-        return text.substring(startIndex, endIndex + 1);
+    private void expect(String compressed, int[] pos, char c) {
+        if (pos[0] >= compressed.length() || compressed.charAt(pos[0]) != c) {
+            throw new IllegalArgumentException("expected " + c + " at " + pos[0]);
+        }
+        pos[0]++;
     }
 
     /**
-     * Take compressed input as a text string, decompress it, and return it as a
-     * text string.
+     * Reads the digits of a number up to the end char, and skips the end char.
      */
-    public String decompress(String compressed) {
-        StringBuilder decompressed = new StringBuilder();
-        Scanner scan = new Scanner(compressed);
-        scan.useDelimiter("");
-
-        while (scan.hasNext()) {
-            scan.next("\\[");
-            int previousMatch = parseNum(scan);
-            scan.next(",");
-            int length = parseNum(scan);
-            scan.next(",");
-            char nextChar = scan.next().charAt(0);
-            scan.next("]");
-            if (previousMatch == 0 && length == 0) {
-                decompressed.append(nextChar);
-            } else {
-                String previousString = decompressed.substring(previousMatch, previousMatch + length);
-                decompressed.append(previousString).append(nextChar);
+    private int parseNum(String compressed, int[] pos, char end) {
+        int num = 0;
+        int start = pos[0];
+        while (pos[0] < compressed.length() && Character.isDigit(compressed.charAt(pos[0]))) {
+            num = num * 10 + (compressed.charAt(pos[0]++) - '0');
+        }
+        if (pos[0] == start) {
+            throw new IllegalArgumentException("expected a number at " + start);
+        }
+        expect(compressed, pos, end);
+        return num;
+    }
+
+    /**
+     * Compresses the input to a binary format, which is a header of the magic
+     * number, the format version and the length of the input, then the tokens.
+     * Each token is the length of its match, then if the length isn't 0, how far
+     * back the match is, then the next char, all as variable length ints: 7 bits
+     * a byte, low bits first, with the top bit set on every byte but the last. So
+     * a char of plain text takes 2 bytes on its own, and a match usually 4 or 5.
+     * Matches can overlap the text they're copied to, which makes runs cheap.
+     */
+    public byte[] compressBinary(String input) {
+        final ByteWriter out = new ByteWriter(input.length() / 2 + 16);
+        out.writeInt(MAGIC);
+        out.writeVarInt(VERSION);
+        out.writeVarInt(input.length());
+
+        binary.compress(input.toCharArray(), new LZ77.TokenListener() {
+            @Override
+            public void token(int distance, int length, char next) {
+                out.writeVarInt(length);
+                if (length > 0) {
+                    out.writeVarInt(distance);
+                }
+                out.writeVarInt(next);
             }
+        });
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompresses the output of compressBinary. Matches are copied with
+     * System.arraycopy, a match that overlaps the text it's copied to in
+     * pieces no longer than how far back it is, each twice the last.
+     */
+    public String decompressBinary(byte[] compressed) {
+        int[] pos = { 4 };
+        if (compressed.length < 4 || ((compressed[0] & 0xFF) << 24 | (compressed[1] & 0xFF) << 16
+                | (compressed[2] & 0xFF) << 8 | (compressed[3] & 0xFF)) != MAGIC
+                || readVarInt(compressed, pos) != VERSION) {
+            throw new IllegalArgumentException("not LempelZiv binary output");
         }
 
-        return decompressed.toString();
+        // a token of 3 bytes or more makes at most MAX_LENGTH + 1 chars, so a length
+        // the rest of the bytes can't make would only allocate an array for nothing
+        int textLength = readVarInt(compressed, pos);
+        if (textLength < 0 || textLength > (long) (compressed.length - pos[0]) * (MAX_LENGTH + 1) / 3 + 1) {
+            throw new IllegalArgumentException("bad text length " + textLength);
+        }
+
+        char[] out = new char[textLength];
+        int length = 0;
+        try {
+            while (length < out.length) {
+                int matchLength = readVarInt(compressed, pos);
+                if (matchLength > MAX_LENGTH) {
+                    throw new IllegalArgumentException("bad match at byte " + pos[0]);
+                }
+                if (matchLength > 0) {
+                    int from = length - readVarInt(compressed, pos);
+                    if (from < 0 || from >= length || length + matchLength >= out.length) {
+                        throw new IllegalArgumentException("bad match at byte " + pos[0]);
+                    }
+                    while (matchLength > 0) {
+                        int copy = Math.min(matchLength, length - from);
+                        System.arraycopy(out, from, out, length, copy);
+                        length += copy;
+                        matchLength -= copy;
+                    }
+                }
+                out[length++] = (char) readVarInt(compressed, pos);
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("truncated LempelZiv binary output");
+        }
+        if (pos[0] != compressed.length) {
+            throw new IllegalArgumentException("LempelZiv binary output is longer than its text");
+        }
+
+        return new String(out);
     }
 
-    private int parseNum(Scanner scan) {
-        StringBuilder numSting = new StringBuilder();
-        Pattern NUMPAT = Pattern.compile("\\d");
+    private static int readVarInt(byte[] bytes, int[] pos) {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            byte b = bytes[pos[0]++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("bad variable length int at byte " + pos[0]);
+    }
+
+    /**
+     * A growing byte array, without ByteArrayOutputStream's locking.
+     */
+    private static class ByteWriter {
+        private byte[] bytes;
+        private int size;
+
+        ByteWriter(int capacity) {
+            bytes = new byte[Math.max(capacity, 16)];
+        }
 
-        while (scan.hasNext(NUMPAT)) {
-            numSting.append(scan.next());
+        void writeInt(int value) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                write(value >>> shift);
+            }
         }
 
-        return Integer.parseInt(numSting.toString());
+        void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            write(value);
+        }
+
+        private void write(int b) {
+            if (size == bytes.length) {
+                bytes = Arrays.copyOf(bytes, size * 2);
+            }
+            bytes[size++] = (byte) b;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, size);
+        }
     }
 
     /**
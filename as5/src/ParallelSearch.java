@@ -0,0 +1,188 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds every match of a pattern in a text on several cores, by splitting the
+ * text into chunks and searching them in a fork join pool. Each chunk is
+ * searched up to pattern length - 1 chars past its end, so a match that
+ * crosses into the next chunk is still found, by the chunk it starts in.
+ * The chunks' matches are joined back together in order.
+ */
+public class ParallelSearch {
+
+    // chunks are at least this long, so the tasks outweigh the cost of forking them
+    private static final int MIN_CHUNK = 1 << 18;
+
+    /**
+     * A search that can be run over part of a text.
+     */
+    public interface Engine {
+        /**
+         * Tells the listener about every match that lies between from and to in
+         * the text, in order.
+         */
+        void findAll(CharSequence text, int from, int to, KMP.MatchListener listener);
+
+        int patternLength();
+    }
+
+    private final Engine engine;
+    private final ForkJoinPool pool;
+
+    public ParallelSearch(Engine engine) {
+        this(engine, ForkJoinPool.commonPool());
+    }
+
+    public ParallelSearch(Engine engine, ForkJoinPool pool) {
+        this.engine = engine;
+        this.pool = pool;
+    }
+
+    public static Engine kmp(String pattern) {
+        final KMP kmp = new KMP(pattern);
+        return new Engine() {
+            @Override
+            public void findAll(CharSequence text, int from, int to, KMP.MatchListener listener) {
+                kmp.findAll(text, from, to, listener);
+            }
+
+            @Override
+            public int patternLength() {
+                return kmp.getPattern().length();
+            }
+        };
+    }
+
+    public static Engine boyerMoore(String pattern) {
+        final BoyerMoore boyerMoore = new BoyerMoore(pattern);
+        return new Engine() {
+            @Override
+            public void findAll(CharSequence text, int from, int to, KMP.MatchListener listener) {
+                boyerMoore.findAll(text, from, to, listener);
+            }
+
+            @Override
+            public int patternLength() {
+                return boyerMoore.getPattern().length();
+            }
+        };
+    }
+
+    public static Engine bruteForce(final String pattern) {
+        if (pattern.isEmpty()) {
+            throw new IllegalArgumentException("empty pattern");
+        }
+        return new Engine() {
+            @Override
+            public void findAll(CharSequence text, int from, int to, KMP.MatchListener listener) {
+                for (int i = from; i <= to - pattern.length(); i++) {
+                    int j = 0;
+                    while (j < pattern.length() && text.charAt(i + j) == pattern.charAt(j)) {
+                        j++;
+                    }
+                    if (j == pattern.length()) {
+                        listener.onMatch(i);
+                    }
+                }
+            }
+
+            @Override
+            public int patternLength() {
+                return pattern.length();
+            }
+        };
+    }
+
+    /**
+     * Times a search of a file on one thread and on all of them: kmp, bm or
+     * brute, then the pattern and the file.
+     */
+    public static void main(String[] args) throws IOException {
+        String text = new String(Files.readAllBytes(new File(args[2]).toPath()), StandardCharsets.UTF_8);
+        Engine engine = args[0].equals("bm") ? boyerMoore(args[1])
+                : args[0].equals("brute") ? bruteForce(args[1]) : kmp(args[1]);
+        ParallelSearch parallel = new ParallelSearch(engine);
+        ParallelSearch single = new ParallelSearch(engine, new ForkJoinPool(1));
+
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            int[] one = single.findAll(text);
+            long middle = System.nanoTime();
+            int[] all = parallel.findAll(text);
+            long end = System.nanoTime();
+            System.out.printf("%d matches, 1 thread %.2fms, %d threads %.2fms, same: %b%n", all.length,
+                    (middle - start) / 1e6, parallel.pool.getParallelism(), (end - middle) / 1e6,
+                    Arrays.equals(one, all));
+        }
+    }
+
+    /**
+     * Returns the index of every match in the text, in order.
+     */
+    public int[] findAll(CharSequence text) {
+        int chunks = pool.getParallelism() * 4;
+        int chunk = Math.max(MIN_CHUNK, Math.max(text.length() / chunks + 1, engine.patternLength() * 4));
+        return pool.invoke(new Search(text, 0, text.length(), chunk));
+    }
+
+    /**
+     * Searches part of the text, splitting it in half until it's one chunk.
+     */
+    @SuppressWarnings("serial")
+    private class Search extends RecursiveTask<int[]> {
+        private final CharSequence text;
+        private final int start;
+        private final int end;
+        private final int chunk;
+
+        Search(CharSequence text, int start, int end, int chunk) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+            this.chunk = chunk;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (end - start <= chunk) {
+                return searchChunk();
+            }
+
+            int middle = start + (end - start) / 2;
+            Search right = new Search(text, middle, end, chunk);
+            right.fork();
+            int[] leftMatches = new Search(text, start, middle, chunk).compute();
+            int[] rightMatches = right.join();
+
+            int[] matches = Arrays.copyOf(leftMatches, leftMatches.length + rightMatches.length);
+            System.arraycopy(rightMatches, 0, matches, leftMatches.length, rightMatches.length);
+            return matches;
+        }
+
+        /**
+         * Finds the matches that start in the chunk.
+         */
+        private int[] searchChunk() {
+            final int[][] matches = { new int[16] };
+            final int[] count = { 0 };
+            int to = (int) Math.min(text.length(), (long) end + engine.patternLength() - 1);
+
+            engine.findAll(text, start, to, new KMP.MatchListener() {
+                @Override
+                public void onMatch(long index) {
+                    if (count[0] == matches[0].length) {
+                        matches[0] = Arrays.copyOf(matches[0], count[0] * 2);
+                    }
+                    matches[0][count[0]++] = (int) index;
+                }
+            });
+
+            return Arrays.copyOf(matches[0], count[0]);
+        }
+    }
+}
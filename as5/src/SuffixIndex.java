@@ -0,0 +1,418 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * A suffix array and LCP array over a text, which answer substring queries in
+ * O(m log n) without scanning the text. The suffix array is built in linear time
+ * with SA-IS, and the LCP array from it with Kasai's algorithm.
+ * <p>
+ * An index can be saved to a file and opened again with the file memory mapped,
+ * so opening it takes no time and the text, suffix array and LCP array are only
+ * read from disk as queries touch them. The file is a header of the magic
+ * number, the version and the length of the text, then the text as chars, then
+ * the suffix array and the LCP array as ints, each starting on a multiple of 4
+ * bytes.
+ */
+public class SuffixIndex {
+
+    private static final int MAGIC = 0x53494458; // "SIDX"
+    private static final int VERSION = 1;
+    private static final int HEADER = 12;
+
+    private final CharBuffer text;
+    // the start of each suffix of the text, in sorted order
+    private final IntBuffer suffixes;
+    // lcp[i] is the length of the longest common prefix of suffixes i - 1 and i
+    private final IntBuffer lcp;
+
+    private SuffixIndex(CharBuffer text, IntBuffer suffixes, IntBuffer lcp) {
+        this.text = text;
+        this.suffixes = suffixes;
+        this.lcp = lcp;
+    }
+
+    /**
+     * Builds an index over a text.
+     */
+    public static SuffixIndex build(CharSequence text) {
+        int n = text.length();
+        // SA-IS wants the text to end with a unique smallest symbol
+        int[] s = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            s[i] = text.charAt(i) + 1;
+        }
+        int[] sa = new int[n + 1];
+        sais(s, sa, n + 1, Character.MAX_VALUE + 2);
+
+        // the first suffix is the end of the text
+        int[] suffixes = Arrays.copyOfRange(sa, 1, n + 1);
+        char[] chars = new char[n];
+        for (int i = 0; i < n; i++) {
+            chars[i] = text.charAt(i);
+        }
+        return new SuffixIndex(CharBuffer.wrap(chars), IntBuffer.wrap(suffixes), IntBuffer.wrap(kasai(chars, suffixes)));
+    }
+
+    /**
+     * Opens an index saved by save, mapping the file into memory.
+     */
+    public static SuffixIndex open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath())) {
+            if (channel.size() < HEADER) {
+                throw new IOException(file + " is not a suffix index");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                throw new IOException(file + " is not a suffix index");
+            }
+            int n = header.getInt(8);
+            if (channel.size() != HEADER + textBytes(n) + 8L * n) {
+                throw new IOException(file + " is truncated");
+            }
+
+            // mapped separately, so the index isn't limited to one 2GB mapping
+            long pos = HEADER;
+            CharBuffer text = channel.map(FileChannel.MapMode.READ_ONLY, pos, 2L * n).asCharBuffer();
+            pos += textBytes(n);
+            IntBuffer suffixes = channel.map(FileChannel.MapMode.READ_ONLY, pos, 4L * n).asIntBuffer();
+            pos += 4L * n;
+            IntBuffer lcp = channel.map(FileChannel.MapMode.READ_ONLY, pos, 4L * n).asIntBuffer();
+            return new SuffixIndex(text, suffixes, lcp);
+        }
+    }
+
+    /**
+     * Saves the index, so it can be opened again with open.
+     */
+    public void save(File file) throws IOException {
+        int n = length();
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw"); FileChannel channel = out.getChannel()) {
+            out.setLength(0);
+            out.setLength(HEADER + textBytes(n) + 8L * n);
+
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putInt(n);
+            long pos = HEADER;
+            channel.map(FileChannel.MapMode.READ_WRITE, pos, 2L * n).asCharBuffer().put(text.duplicate().rewind());
+            pos += textBytes(n);
+            channel.map(FileChannel.MapMode.READ_WRITE, pos, 4L * n).asIntBuffer().put(suffixes.duplicate().rewind());
+            pos += 4L * n;
+            channel.map(FileChannel.MapMode.READ_WRITE, pos, 4L * n).asIntBuffer().put(lcp.duplicate().rewind());
+        }
+    }
+
+    /**
+     * The bytes the text takes in a file, rounded up so the arrays after it are
+     * aligned.
+     */
+    private static long textBytes(int n) {
+        return (2L * n + 3) & ~3L;
+    }
+
+    /**
+     * Builds or queries an index: build text index, count index pattern,
+     * find index pattern, or repeat index.
+     */
+    public static void main(String[] args) throws IOException {
+        long start = System.currentTimeMillis();
+        if (args[0].equals("build")) {
+            String text = new String(Files.readAllBytes(new File(args[1]).toPath()), StandardCharsets.UTF_8);
+            build(text).save(new File(args[2]));
+            System.out.println("indexed " + text.length() + " chars");
+        } else if (args[0].equals("count")) {
+            System.out.println(open(new File(args[1])).count(args[2]) + " matches");
+        } else if (args[0].equals("find")) {
+            System.out.println(Arrays.toString(open(new File(args[1])).positions(args[2])));
+        } else if (args[0].equals("repeat")) {
+            SuffixIndex index = open(new File(args[1]));
+            int[] repeat = index.longestRepeat();
+            System.out.println(repeat[1] + " chars at " + repeat[0] + ": " + index.substring(repeat[0], repeat[1]));
+        }
+        System.out.println("in " + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * Returns the length of the indexed text.
+     */
+    public int length() {
+        return suffixes.limit();
+    }
+
+    public String substring(int start, int length) {
+        return text.subSequence(start, start + length).toString();
+    }
+
+    /**
+     * Returns how many times the pattern appears in the text.
+     */
+    public int count(String pattern) {
+        return upperBound(pattern) - lowerBound(pattern);
+    }
+
+    /**
+     * Returns the index of every match of the pattern, in order.
+     */
+    public int[] positions(String pattern) {
+        int lower = lowerBound(pattern);
+        int[] positions = new int[upperBound(pattern) - lower];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = suffixes.get(lower + i);
+        }
+        Arrays.sort(positions);
+        return positions;
+    }
+
+    /**
+     * Returns the index of the first match that starts at or after from, or -1
+     * if there isn't one.
+     */
+    public int indexOf(String pattern, int from) {
+        int first = -1;
+        for (int i = lowerBound(pattern), upper = upperBound(pattern); i < upper; i++) {
+            int position = suffixes.get(i);
+            if (position >= from && (first == -1 || position < first)) {
+                first = position;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Returns the index and length of the longest substring that appears at
+     * least twice, the first in suffix order if there are several.
+     */
+    public int[] longestRepeat() {
+        int best = 0;
+        for (int i = 1; i < length(); i++) {
+            if (lcp.get(i) > lcp.get(best)) {
+                best = i;
+            }
+        }
+        return new int[] { best == 0 ? 0 : suffixes.get(best), best == 0 ? 0 : lcp.get(best) };
+    }
+
+    /**
+     * Returns the first suffix in sorted order that isn't less than the pattern.
+     */
+    private int lowerBound(String pattern) {
+        int low = 0;
+        int high = length();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(pattern, suffixes.get(mid)) > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the first suffix in sorted order that is greater than the pattern
+     * and doesn't start with it.
+     */
+    private int upperBound(String pattern) {
+        int low = 0;
+        int high = length();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (compare(pattern, suffixes.get(mid)) >= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Compares the pattern with the first pattern.length() chars of the suffix
+     * starting at start, so a suffix that starts with the pattern compares equal.
+     */
+    private int compare(String pattern, int start) {
+        int n = length();
+        for (int i = 0; i < pattern.length(); i++) {
+            if (start + i == n) {
+                return 1;
+            }
+            int diff = pattern.charAt(i) - text.get(start + i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Kasai's algorithm, which finds the LCP of each suffix with the one before
+     * it in sorted order, in text order, so each step can start from one less
+     * than the last.
+     */
+    private static int[] kasai(char[] text, int[] suffixes) {
+        int n = text.length;
+        int[] rank = new int[n];
+        for (int i = 0; i < n; i++) {
+            rank[suffixes[i]] = i;
+        }
+
+        int[] lcp = new int[n];
+        int h = 0;
+        for (int i = 0; i < n; i++) {
+            if (rank[i] > 0) {
+                int j = suffixes[rank[i] - 1];
+                while (i + h < n && j + h < n && text[i + h] == text[j + h]) {
+                    h++;
+                }
+                lcp[rank[i]] = h;
+                if (h > 0) {
+                    h--;
+                }
+            } else {
+                h = 0;
+            }
+        }
+        return lcp;
+    }
+
+    /**
+     * SA-IS: sorts the suffixes of s, which has n symbols below k and ends with
+     * a unique 0, into sa. The LMS substrings are sorted by induction, named,
+     * and their suffixes sorted by recursing on the names if they aren't all
+     * different, then the sorted LMS suffixes induce the order of the rest.
+     */
+    private static void sais(int[] s, int[] sa, int n, int k) {
+        // S type suffixes are smaller than the suffix after them
+        boolean[] sType = new boolean[n];
+        sType[n - 1] = true;
+        for (int i = n - 2; i >= 0; i--) {
+            sType[i] = s[i] < s[i + 1] || (s[i] == s[i + 1] && sType[i + 1]);
+        }
+
+        // sort the LMS substrings
+        int[] buckets = new int[k];
+        bucketEnds(s, buckets, n, k);
+        Arrays.fill(sa, 0, n, -1);
+        for (int i = 1; i < n; i++) {
+            if (isLms(sType, i)) {
+                sa[--buckets[s[i]]] = i;
+            }
+        }
+        induce(s, sa, sType, buckets, n, k);
+
+        // name them, in sorted order, equal substrings getting the same name
+        int n1 = 0;
+        for (int i = 0; i < n; i++) {
+            if (isLms(sType, sa[i])) {
+                sa[n1++] = sa[i];
+            }
+        }
+        Arrays.fill(sa, n1, n, -1);
+        int names = 0;
+        int previous = -1;
+        for (int i = 0; i < n1; i++) {
+            int position = sa[i];
+            boolean different = previous == -1;
+            for (int d = 0; !different; d++) {
+                if (s[position + d] != s[previous + d] || sType[position + d] != sType[previous + d]) {
+                    different = true;
+                } else if (d > 0 && (isLms(sType, position + d) || isLms(sType, previous + d))) {
+                    break;
+                }
+            }
+            if (different) {
+                names++;
+                previous = position;
+            }
+            sa[n1 + position / 2] = names - 1;
+        }
+
+        // the names in text order are the reduced string
+        int[] s1 = new int[n1];
+        for (int i = n1, j = 0; i < n; i++) {
+            if (sa[i] >= 0) {
+                s1[j++] = sa[i];
+            }
+        }
+        int[] sa1 = new int[n1];
+        if (names < n1) {
+            sais(s1, sa1, n1, names);
+        } else {
+            for (int i = 0; i < n1; i++) {
+                sa1[s1[i]] = i;
+            }
+        }
+
+        // put the LMS suffixes in sorted order at the ends of their buckets
+        for (int i = 1, j = 0; i < n; i++) {
+            if (isLms(sType, i)) {
+                s1[j++] = i;
+            }
+        }
+        bucketEnds(s, buckets, n, k);
+        Arrays.fill(sa, 0, n, -1);
+        for (int i = n1 - 1; i >= 0; i--) {
+            int position = s1[sa1[i]];
+            sa[--buckets[s[position]]] = position;
+        }
+        induce(s, sa, sType, buckets, n, k);
+    }
+
+    /**
+     * Induces the L type suffixes from the start of each bucket, then the S type
+     * ones from the end.
+     */
+    private static void induce(int[] s, int[] sa, boolean[] sType, int[] buckets, int n, int k) {
+        bucketStarts(s, buckets, n, k);
+        for (int i = 0; i < n; i++) {
+            int j = sa[i] - 1;
+            if (j >= 0 && !sType[j]) {
+                sa[buckets[s[j]]++] = j;
+            }
+        }
+        bucketEnds(s, buckets, n, k);
+        for (int i = n - 1; i >= 0; i--) {
+            int j = sa[i] - 1;
+            if (j >= 0 && sType[j]) {
+                sa[--buckets[s[j]]] = j;
+            }
+        }
+    }
+
+    private static boolean isLms(boolean[] sType, int i) {
+        return i > 0 && sType[i] && !sType[i - 1];
+    }
+
+    private static void bucketStarts(int[] s, int[] buckets, int n, int k) {
+        countSymbols(s, buckets, n, k);
+        for (int c = 0, sum = 0; c < k; c++) {
+            int count = buckets[c];
+            buckets[c] = sum;
+            sum += count;
+        }
+    }
+
+    private static void bucketEnds(int[] s, int[] buckets, int n, int k) {
+        countSymbols(s, buckets, n, k);
+        for (int c = 0, sum = 0; c < k; c++) {
+            sum += buckets[c];
+            buckets[c] = sum;
+        }
+    }
+
+    private static void countSymbols(int[] s, int[] buckets, int n, int k) {
+        Arrays.fill(buckets, 0, k, 0);
+        for (int i = 0; i < n; i++) {
+            buckets[s[i]]++;
+        }
+    }
+}